@@ -0,0 +1,103 @@
+package bot.telegram.flashcards.cache;
+
+import bot.telegram.flashcards.repository.FlashcardContent;
+import bot.telegram.flashcards.repository.FlashcardRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Cache of the question and answer of cards, keyed by card ID.
+ *
+ * The cache is bounded by the estimated memory of the cached text rather than by the number of cards, since
+ * cards range from a single word to long paragraphs. Caffeine's W-TinyLFU policy admits a card only if it is
+ * requested more often than the card it would evict, so the few popular starter packages stay cached while
+ * one-off browsing of large packages does not flush them.
+ *
+ * Entries are dropped when a card is written through JPA (see {@link PackageCatalogInvalidator}).
+ */
+@Component
+public class FlashcardContentCache {
+    /**
+     * Estimated size of the record, the two strings and their arrays, and the cache entry itself.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final FlashcardRepository flashcardRepository;
+    private final Cache<Long, FlashcardContent> cache;
+
+    public FlashcardContentCache(FlashcardRepository flashcardRepository,
+                                 @Value("${bot.content-cache.max-size:64MB}") DataSize maxSize) {
+        this.flashcardRepository = flashcardRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, FlashcardContent content) -> weigh(content))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param flashcardId the ID of the flashcard
+     * @return the content of the flashcard, or null if the flashcard does not exist
+     */
+    public FlashcardContent get(long flashcardId) {
+        return cache.get(flashcardId, id -> flashcardRepository.findContentById(id).orElse(null));
+    }
+
+    /**
+     * Drops the content of a card; the next request loads it again.
+     *
+     * @param flashcardId the ID of the flashcard
+     */
+    public void invalidate(long flashcardId) {
+        cache.invalidate(flashcardId);
+    }
+
+    /**
+     * @return hit, miss and eviction counters since startup
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the estimated number of bytes held by the cache
+     */
+    public long getWeightedSize() {
+        return cache.policy().eviction().orElseThrow().weightedSize().orElse(0);
+    }
+
+    /**
+     * Registers the {@code cache.*} meters of Caffeine, tagged {@code cache=flashcard-content}: gets by hit or
+     * miss, puts, the number of entries, and evictions with their weight.
+     *
+     * @param registry the registry to register the meters with
+     */
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "flashcard-content");
+    }
+
+    /**
+     * Performs pending evictions; they normally run asynchronously after writes.
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * Estimates the retained size of a card, counting two bytes per character as the upper bound of a String.
+     */
+    static int weigh(FlashcardContent content) {
+        long chars = length(content.question()) + length(content.answer());
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + 2 * chars);
+    }
+
+    private static long length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
@@ -0,0 +1,89 @@
+package bot.telegram.flashcards.cache;
+
+import bot.telegram.flashcards.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmap of the IDs of all registered users, so {@code /start} of a known user needs no query.
+ *
+ * The bitmap is loaded in ID order at startup and extended on every registration. It only ever answers
+ * "known"; a user missing from it, for example before the load finishes, is registered with an idempotent
+ * insert that tells whether the user existed, so the bitmap never has to be exact.
+ * Users are never deleted, so a known ID stays known.
+ */
+@Slf4j
+@Component
+public class KnownUserRegistry {
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final Roaring64Bitmap knownUsers = new Roaring64Bitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public KnownUserRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Adds the IDs of all registered users, reading them in batches by ID.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = Long.MIN_VALUE;
+        long loaded = 0;
+        List<Long> ids;
+        do {
+            ids = userRepository.findIdsAfter(afterId, PageRequest.ofSize(LOAD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (Long id : ids) {
+                    knownUsers.addLong(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+                loaded += ids.size();
+            }
+        } while (ids.size() == LOAD_BATCH_SIZE);
+
+        log.info("Loaded {} known users", loaded);
+    }
+
+    /**
+     * @param chatId the Telegram chat ID
+     * @return true if the user is known to be registered, false if it has to be checked
+     */
+    public boolean isKnown(long chatId) {
+        lock.readLock().lock();
+        try {
+            return knownUsers.contains(chatId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a user that is registered.
+     *
+     * @param chatId the Telegram chat ID
+     */
+    public void add(long chatId) {
+        lock.writeLock().lock();
+        try {
+            knownUsers.addLong(chatId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package bot.telegram.flashcards.cache;
+
+import bot.telegram.flashcards.repository.FlashcardRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordinal index of the cards of each package: a {@code long[]} of card IDs in the order the package browser
+ * shows them, ordered by ID. The card at a position is one array read away, and the length of the array is
+ * the number of cards, so browsing fetches only the shown card.
+ *
+ * An index is loaded with a single ID query on first use, dropped when a card of the package is written
+ * through JPA (see {@link PackageCatalogInvalidator}) and reloaded after {@code bot.catalog.max-age}.
+ */
+@Component
+public class PackageCardIndex {
+    private final FlashcardRepository flashcardRepository;
+    private final long maxAgeNanos;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public PackageCardIndex(FlashcardRepository flashcardRepository,
+                            @Value("${bot.catalog.max-age:5m}") Duration maxAge) {
+        this.flashcardRepository = flashcardRepository;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * @param packageId the ID of the package
+     * @return the IDs of the cards of the package by position, empty if the package has no cards;
+     *         the array is shared and must not be modified
+     */
+    public long[] getCardIds(long packageId) {
+        Entry entry = entries.get(packageId);
+        if (entry != null && System.nanoTime() - entry.loadedAt < maxAgeNanos) {
+            return entry.cardIds;
+        }
+
+        long loadedVersion = version.get();
+        long loadedAt = System.nanoTime();
+        List<Long> ids = flashcardRepository.findIdsByPackageId(packageId);
+        long[] cardIds = new long[ids.size()];
+        for (int i = 0; i < cardIds.length; i++) {
+            cardIds[i] = ids.get(i);
+        }
+
+        // an invalidation during the load may have missed the loaded rows; serve them once, but do not keep them
+        if (version.get() == loadedVersion) {
+            entries.put(packageId, new Entry(cardIds, loadedAt));
+        }
+        return cardIds;
+    }
+
+    /**
+     * Drops the index of a package; the next request loads it again.
+     *
+     * @param packageId the ID of the package
+     */
+    public void invalidate(long packageId) {
+        version.incrementAndGet();
+        entries.remove(packageId);
+    }
+
+    private record Entry(long[] cardIds, long loadedAt) {
+    }
+}
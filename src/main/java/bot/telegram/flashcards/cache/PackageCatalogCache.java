@@ -0,0 +1,165 @@
+package bot.telegram.flashcards.cache;
+
+import bot.telegram.flashcards.misc.CallbackOpcode;
+import bot.telegram.flashcards.repository.FlashcardPackageRepository;
+import bot.telegram.flashcards.repository.PackageSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog of all packages with their keyboard pages rendered in advance.
+ *
+ * The catalog is loaded with a single query of {@code (id, title, cardCount)} summaries and split into pages
+ * ordered by package ID. Pages are addressed by keyset, the ID of their first package, so a page button stays
+ * valid when packages are added or removed: it opens the page that now contains that ID.
+ * While the catalog is warm, listing packages does not touch the database.
+ *
+ * The catalog is dropped when a package or card is changed through JPA (see {@link PackageCatalogInvalidator})
+ * and after {@code bot.catalog.max-age}, which covers changes made directly in the database.
+ */
+@Slf4j
+@Component
+public class PackageCatalogCache {
+    private final FlashcardPackageRepository flashcardPackageRepository;
+    private final int pageSize;
+    private final long maxAgeNanos;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Catalog catalog;
+
+    public PackageCatalogCache(FlashcardPackageRepository flashcardPackageRepository,
+                               @Value("${bot.catalog.page-size:20}") int pageSize,
+                               @Value("${bot.catalog.max-age:5m}") Duration maxAge) {
+        this.flashcardPackageRepository = flashcardPackageRepository;
+        this.pageSize = pageSize;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * @return the keyboard of the first page, without navigation to a previous page
+     */
+    public InlineKeyboardMarkup getFirstPage() {
+        return current().pages[0];
+    }
+
+    /**
+     * Returns the page that contains the given package, or the page where it would be if it was removed.
+     *
+     * @param firstPackageId the ID of the first package of the page, as encoded in a navigation button
+     * @return the keyboard of the page
+     */
+    public InlineKeyboardMarkup getPage(long firstPackageId) {
+        Catalog current = current();
+        int index = Arrays.binarySearch(current.ids, firstPackageId);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        int page = Math.min(index / pageSize, current.pages.length - 1);
+        return current.pages[page];
+    }
+
+    /**
+     * @param packageId the ID of the package
+     * @return the summary of the package, or null if the catalog does not contain it
+     */
+    public PackageSummary getSummary(long packageId) {
+        Catalog current = current();
+        int index = Arrays.binarySearch(current.ids, packageId);
+        return index < 0 ? null : current.summaries.get(index);
+    }
+
+    /**
+     * Drops the catalog; the next request loads it again.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        catalog = null;
+    }
+
+    private Catalog current() {
+        Catalog current = catalog;
+        if (current != null && System.nanoTime() - current.loadedAt < maxAgeNanos) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = catalog;
+            if (current != null && System.nanoTime() - current.loadedAt < maxAgeNanos) {
+                return current;
+            }
+            long loadedVersion = version.get();
+            current = load();
+            // an invalidation during the load may have missed the loaded rows; serve them once, but do not keep them
+            if (version.get() == loadedVersion) {
+                catalog = current;
+            }
+            return current;
+        }
+    }
+
+    private Catalog load() {
+        long loadedAt = System.nanoTime();
+        List<PackageSummary> summaries = flashcardPackageRepository.findAllSummaries();
+
+        long[] ids = new long[summaries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = summaries.get(i).id();
+        }
+
+        int pageCount = Math.max(1, (summaries.size() + pageSize - 1) / pageSize);
+        InlineKeyboardMarkup[] pages = new InlineKeyboardMarkup[pageCount];
+        for (int page = 0; page < pageCount; page++) {
+            pages[page] = renderPage(summaries, page, pageCount);
+        }
+
+        log.debug("Loaded catalog of {} packages in {} pages", summaries.size(), pageCount);
+        return new Catalog(ids, summaries, pages, loadedAt);
+    }
+
+    private InlineKeyboardMarkup renderPage(List<PackageSummary> summaries, int page, int pageCount) {
+        int from = page * pageSize;
+        int to = Math.min(from + pageSize, summaries.size());
+
+        List<List<InlineKeyboardButton>> keyboard = new ArrayList<>(to - from + 1);
+        for (int i = from; i < to; i++) {
+            PackageSummary summary = summaries.get(i);
+            keyboard.add(List.of(InlineKeyboardButton.builder()
+                    .callbackData(CallbackOpcode.SHOW_PACKAGE.encode(summary.id()))
+                    .text(summary.title())
+                    .build()));
+        }
+
+        List<InlineKeyboardButton> navigation = new ArrayList<>(2);
+        if (page > 0) {
+            navigation.add(InlineKeyboardButton.builder()
+                    .callbackData(CallbackOpcode.PACKAGES_PAGE.encode(summaries.get(from - pageSize).id()))
+                    .text("Previous")
+                    .build());
+        }
+        if (page < pageCount - 1) {
+            navigation.add(InlineKeyboardButton.builder()
+                    .callbackData(CallbackOpcode.PACKAGES_PAGE.encode(summaries.get(to).id()))
+                    .text("Next")
+                    .build());
+        }
+        if (!navigation.isEmpty()) {
+            keyboard.add(navigation);
+        }
+        return new InlineKeyboardMarkup(keyboard);
+    }
+
+    /**
+     * Immutable snapshot of the catalog; {@code ids} is sorted and parallel to {@code summaries}.
+     */
+    private record Catalog(long[] ids, List<PackageSummary> summaries, InlineKeyboardMarkup[] pages, long loadedAt) {
+    }
+}
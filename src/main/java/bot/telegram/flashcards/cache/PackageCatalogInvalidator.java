@@ -0,0 +1,73 @@
+package bot.telegram.flashcards.cache;
+
+import bot.telegram.flashcards.models.Flashcard;
+import bot.telegram.flashcards.models.FlashcardPackage;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that drops the {@link PackageCatalogCache}, the {@link PackageCardIndex} of the affected
+ * package and the {@link FlashcardContentCache} entry of the affected card when a package or card is written.
+ * Inside a transaction the caches are dropped after the commit, so they cannot be reloaded with the old rows.
+ *
+ * Created by Hibernate through the Spring bean container; the caches are looked up lazily because the listener
+ * is instantiated while the entity manager factory, which the caches depend on, is still being built.
+ */
+public class PackageCatalogInvalidator {
+    private final ObjectProvider<PackageCatalogCache> packageCatalogCache;
+    private final ObjectProvider<PackageCardIndex> packageCardIndex;
+    private final ObjectProvider<FlashcardContentCache> flashcardContentCache;
+
+    public PackageCatalogInvalidator(ObjectProvider<PackageCatalogCache> packageCatalogCache,
+                                     ObjectProvider<PackageCardIndex> packageCardIndex,
+                                     ObjectProvider<FlashcardContentCache> flashcardContentCache) {
+        this.packageCatalogCache = packageCatalogCache;
+        this.packageCardIndex = packageCardIndex;
+        this.flashcardContentCache = flashcardContentCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onWrite(Object entity) {
+        Long packageId = packageIdOf(entity);
+        Long flashcardId = entity instanceof Flashcard flashcard ? flashcard.getId() : null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(packageId, flashcardId);
+                }
+            });
+        } else {
+            invalidate(packageId, flashcardId);
+        }
+    }
+
+    private void invalidate(Long packageId, Long flashcardId) {
+        packageCatalogCache.ifAvailable(PackageCatalogCache::invalidate);
+        if (packageId != null) {
+            packageCardIndex.ifAvailable(index -> index.invalidate(packageId));
+        }
+        if (flashcardId != null) {
+            flashcardContentCache.ifAvailable(cache -> cache.invalidate(flashcardId));
+        }
+    }
+
+    /**
+     * @return the package whose cards are affected, or null if there is none
+     */
+    private static Long packageIdOf(Object entity) {
+        if (entity instanceof FlashcardPackage flashcardPackage) {
+            return flashcardPackage.getId();
+        }
+        if (entity instanceof Flashcard flashcard && flashcard.getFlashcardPackage() != null) {
+            return flashcard.getFlashcardPackage().getId();
+        }
+        return null;
+    }
+}
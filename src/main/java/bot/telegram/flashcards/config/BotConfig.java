@@ -7,10 +7,31 @@ import org.springframework.context.annotation.PropertySource;
 
 @Data
 @Configuration
-@PropertySource("classpath:application.properties")
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
 public class BotConfig {
     @Value("${bot.name}")
     String name;
     @Value("${bot.token}")
     String token;
+    /**
+     * Base URL of the Bot API, the token and the method name are appended to it.
+     * Points to a local stub in load tests.
+     */
+    @Value("${bot.api-url:https://api.telegram.org/bot}")
+    String apiUrl;
+    /**
+     * Receive updates through a webhook on {@code server.port} instead of long polling.
+     */
+    @Value("${bot.webhook.enabled:false}")
+    boolean webhookEnabled;
+    /**
+     * Public HTTPS URL Telegram posts updates to, ending with {@code bot.webhook.path}.
+     */
+    @Value("${bot.webhook.url:}")
+    String webhookUrl;
+    /**
+     * Secret token Telegram sends with every update, empty to accept updates without it.
+     */
+    @Value("${bot.webhook.secret:}")
+    String webhookSecret;
 }
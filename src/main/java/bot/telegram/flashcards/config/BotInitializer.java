@@ -1,12 +1,17 @@
 package bot.telegram.flashcards.config;
 
 import bot.telegram.flashcards.controller.MainController;
+import bot.telegram.flashcards.dispatch.ProcessedUpdates;
+import bot.telegram.flashcards.dispatch.WebhookIntake;
+import bot.telegram.flashcards.outbound.OutboundMessageQueue;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
@@ -14,16 +19,58 @@ import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 @Component
 @AllArgsConstructor
 public class BotInitializer {
+    BotConfig config;
     MainController bot;
+    OutboundMessageQueue outboundMessageQueue;
+    WebhookIntake webhookIntake;
+    ProcessedUpdates processedUpdates;
 
     @EventListener(ContextRefreshedEvent.class)
     public void init() throws TelegramApiException {
-        TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
+        outboundMessageQueue.start(bot);
         try {
-            telegramBotsApi.registerBot(bot);
+            if (config.isWebhookEnabled()) {
+                initWebhook();
+            } else {
+                bot.clearWebhook();
+                confirmRestoredOffset();
+                TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
+                telegramBotsApi.registerBot(bot);
+            }
         }
         catch (TelegramApiException e) {
             log.error("Error occurred: {}", e.getMessage());
         }
     }
+
+    /**
+     * Confirms the updates below the offset saved before the last shutdown, so Telegram does not deliver them
+     * to the long polling session again. In webhook mode they are only dropped by {@link ProcessedUpdates}.
+     */
+    private void confirmRestoredOffset() {
+        int offset = processedUpdates.getRestoredOffset();
+        if (offset <= 0) {
+            return;
+        }
+        try {
+            bot.execute(GetUpdates.builder().offset(offset).limit(1).timeout(0).build());
+            log.info("Confirmed updates below {}", offset);
+        } catch (TelegramApiException e) {
+            log.warn("Cannot confirm updates below {}: {}", offset, e.getMessage());
+        }
+    }
+
+    /**
+     * Feeds updates posted to the webhook endpoint into the bot and tells Telegram where to post them.
+     * Long polling is not started, since Telegram refuses getUpdates while a webhook is set.
+     */
+    private void initWebhook() throws TelegramApiException {
+        webhookIntake.start(bot::onUpdateReceived);
+        String secret = config.getWebhookSecret();
+        bot.execute(SetWebhook.builder()
+                .url(config.getWebhookUrl())
+                .secretToken(secret == null || secret.isEmpty() ? null : secret)
+                .build());
+        log.info("Receiving updates through the webhook at {}", config.getWebhookUrl());
+    }
 }
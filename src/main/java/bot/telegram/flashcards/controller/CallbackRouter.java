@@ -0,0 +1,95 @@
+package bot.telegram.flashcards.controller;
+
+import bot.telegram.flashcards.metrics.BotMetrics;
+import bot.telegram.flashcards.metrics.OperationTimer;
+import bot.telegram.flashcards.misc.CallbackData;
+import bot.telegram.flashcards.misc.CallbackOpcode;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Routing table for callback queries, built once at startup.
+ * Each callback is decoded exactly once and dispatched by its opcode, timed by the timer of the button.
+ */
+@Slf4j
+public class CallbackRouter {
+
+    /**
+     * Handler of a single button type.
+     */
+    @FunctionalInterface
+    public interface CallbackHandler {
+        void handle(CallbackQuery callbackQuery, CallbackData callbackData);
+    }
+
+    private final Map<CallbackOpcode, CallbackHandler> handlers = new EnumMap<>(CallbackOpcode.class);
+    private final BotMetrics botMetrics;
+
+    /**
+     * Creates a router whose handlers are not timed.
+     */
+    public CallbackRouter() {
+        this(BotMetrics.disabled());
+    }
+
+    /**
+     * @param botMetrics the timers of the buttons
+     */
+    public CallbackRouter(BotMetrics botMetrics) {
+        this.botMetrics = botMetrics;
+    }
+
+    /**
+     * Registers the handler of a button.
+     *
+     * @param opcode the button
+     * @param handler the logic invoked when the button is pressed
+     * @return this router, for chaining
+     */
+    public CallbackRouter on(CallbackOpcode opcode, CallbackHandler handler) {
+        if (handlers.putIfAbsent(opcode, handler) != null) {
+            throw new IllegalStateException("Handler for " + opcode + " is already registered");
+        }
+        return this;
+    }
+
+    /**
+     * Decodes the callback data and invokes the registered handler.
+     *
+     * @param callbackQuery the incoming callback query
+     * @return true if a handler was found
+     */
+    public boolean route(CallbackQuery callbackQuery) {
+        return route(callbackQuery, CallbackData.decode(callbackQuery.getData()));
+    }
+
+    /**
+     * Invokes the registered handler of callback data decoded by the caller.
+     *
+     * @param callbackQuery the incoming callback query
+     * @param callbackData its decoded data, or null if the data does not match any known button
+     * @return true if a handler was found
+     */
+    public boolean route(CallbackQuery callbackQuery, CallbackData callbackData) {
+        CallbackHandler handler = callbackData == null ? null : handlers.get(callbackData.opcode());
+        if (handler == null) {
+            log.debug("Unknown callback data: {}", callbackQuery.getData());
+            botMetrics.unknownCallback();
+            return false;
+        }
+
+        OperationTimer timer = botMetrics.callbackTimer(callbackData.opcode());
+        long startedAt = timer.start();
+        try {
+            handler.handle(callbackQuery, callbackData);
+        } catch (RuntimeException e) {
+            timer.failure(startedAt);
+            throw e;
+        }
+        timer.success(startedAt);
+        return true;
+    }
+}
@@ -39,11 +39,11 @@ public class EducationController {
      * Starts a new learning session for a selected flashcard package.
      * Initializes session timing and card counters.
      *
-     * @param callbackQuery the callback query containing package ID in format "FLASHCARD_PACKAGE_{id}_SELECTED"
+     * @param callbackQuery the callback query from the "Start education" button
+     * @param flashcardPackageId the ID of the selected package, decoded from the callback data
      * @return EditMessageText with the first flashcard question
      */
-    public EditMessageText startEducation(CallbackQuery callbackQuery) {
-        long flashcardPackageId = Long.parseLong(callbackQuery.getData().split("_")[2]);
+    public EditMessageText startEducation(CallbackQuery callbackQuery, long flashcardPackageId) {
         int messageId = ((Message) callbackQuery.getMessage()).getMessageId();
         long chatId = callbackQuery.getMessage().getChatId();
 
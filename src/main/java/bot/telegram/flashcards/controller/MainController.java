@@ -1,6 +1,10 @@
 package bot.telegram.flashcards.controller;
 
 
+import bot.telegram.flashcards.metrics.BotMetrics;
+import bot.telegram.flashcards.metrics.OperationTimer;
+import bot.telegram.flashcards.misc.CallbackData;
+import bot.telegram.flashcards.misc.CallbackOpcode;
 import bot.telegram.flashcards.misc.FlashcardAnswerStatus;
 import org.springframework.stereotype.Controller;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
@@ -8,8 +12,16 @@ import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import bot.telegram.flashcards.config.BotConfig;
+import bot.telegram.flashcards.dispatch.InFlightCallbacks;
+import bot.telegram.flashcards.dispatch.ProcessedUpdates;
+import bot.telegram.flashcards.dispatch.UpdateDispatcher;
+import bot.telegram.flashcards.dispatch.UpdateLane;
+import bot.telegram.flashcards.outbound.OutboundMessageQueue;
+import bot.telegram.flashcards.outbound.RenderedMessageCache;
+import bot.telegram.flashcards.service.interfaces.IUserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -23,28 +35,46 @@ import java.util.*;
 /**
  * Main controller for the Telegram bot.
  * Handles all incoming updates (messages and callback queries) and routes them to appropriate controllers.
- * Extends TelegramLongPollingBot to receive updates via long polling.
+ * Extends TelegramLongPollingBot to receive updates via long polling, or is fed by the
+ * {@link WebhookController} when the webhook is enabled.
  */
 @Slf4j
 @Controller
 public class MainController extends TelegramLongPollingBot {
+    private static final String BUSY_TEXT = "The bot is busy right now, please try again in a moment";
+
     final BotConfig config;
     private final StartController startController;
     private final HelpController helpController;
     private final EducationController educationController;
     private final ShowAllPackagesController showAllPackagesController;
     private final StopController stopController;
+    private final UpdateDispatcher updateDispatcher;
+    private final ProcessedUpdates processedUpdates;
+    private final InFlightCallbacks inFlightCallbacks;
+    private final OutboundMessageQueue outboundMessageQueue;
+    private final RenderedMessageCache renderedMessages;
+    private final IUserService userService;
+    private final BotMetrics botMetrics;
+    private final CallbackRouter callbackRouter;
 
     @Autowired
-    public MainController(BotConfig config, StartController startController, EducationController educationController, HelpController helpController, ShowAllPackagesController ShowAllPackagesController, StopController stopController) {
-        super(config.getToken());
+    public MainController(BotConfig config, StartController startController, EducationController educationController, HelpController helpController, ShowAllPackagesController ShowAllPackagesController, StopController stopController, UpdateDispatcher updateDispatcher, ProcessedUpdates processedUpdates, InFlightCallbacks inFlightCallbacks, OutboundMessageQueue outboundMessageQueue, RenderedMessageCache renderedMessages, IUserService userService, BotMetrics botMetrics) {
+        super(createBotOptions(config), config.getToken());
         this.config = config;
+        this.updateDispatcher = updateDispatcher;
+        this.processedUpdates = processedUpdates;
+        this.inFlightCallbacks = inFlightCallbacks;
+        this.outboundMessageQueue = outboundMessageQueue;
+        this.renderedMessages = renderedMessages;
+        this.userService = userService;
+        this.botMetrics = botMetrics;
         this.startController = startController;
         this.educationController = educationController;
         this.helpController = helpController;
         this.showAllPackagesController = ShowAllPackagesController;
         this.stopController = stopController;
-
+        this.callbackRouter = createCallbackRouter();
 
         List<BotCommand> listOfCommands = new ArrayList<>();
         listOfCommands.add(new BotCommand("/start", "get a welcome message"));
@@ -60,6 +90,18 @@ public class MainController extends TelegramLongPollingBot {
         }
     }
 
+    /**
+     * Builds the options of the bot, with the Bot API URL taken from the configuration.
+     *
+     * @param config the bot configuration
+     * @return options for the long polling bot
+     */
+    private static DefaultBotOptions createBotOptions(BotConfig config) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(config.getApiUrl());
+        return options;
+    }
+
     @Override
     public String getBotUsername() {
         return config.getName();
@@ -67,28 +109,113 @@ public class MainController extends TelegramLongPollingBot {
 
     /**
      * Main entry point for all bot updates.
-     * Routes updates to appropriate handlers based on update type.
+     * Hands the update over to the per-chat dispatcher, so the long polling thread is never blocked
+     * by database work or outgoing requests.
+     * An update that was already received, e.g. redelivered after a restart, is dropped.
+     * A button click is acknowledged right away, before it is handed to the dispatcher and so before any
+     * database work, and a repeated click on a button whose previous click is still in flight is dropped.
+     * An update whose lane is full is shed and answered with a busy notice instead.
      *
      * @param update the incoming Telegram update
      */
     @Override
     public void onUpdateReceived(Update update) {
-        if (update.hasMessage() && update.getMessage().hasText()) {
-            onMessageReceived(update);
-        } else if (update.hasCallbackQuery()) {
-            onCallbackQueryReceived(update);
+        if (!processedUpdates.tryAcquire(update)) {
+            botMetrics.replayedUpdate();
+            log.debug("Dropped replayed update {}", update.getUpdateId());
+            return;
+        }
+        CallbackQuery callbackQuery = update.getCallbackQuery();
+        if (callbackQuery != null && !inFlightCallbacks.tryAcquire(callbackQuery)) {
+            outboundMessageQueue.acknowledge(callbackQuery.getId());
+            botMetrics.duplicateCallback();
+            log.debug("Dropped repeated click on {}", callbackQuery.getData());
+            processedUpdates.release(update);
+            return;
+        }
+        // decoded once here, for the lane and for the router
+        CallbackData callbackData = callbackQuery == null ? null : CallbackData.decode(callbackQuery.getData());
+        UpdateLane lane = callbackQuery == null ? UpdateLane.COMMAND : UpdateLane.of(callbackData);
+        if (!updateDispatcher.tryReserve(lane)) {
+            replyBusy(update);
+            return;
+        }
+        if (callbackQuery != null) {
+            outboundMessageQueue.acknowledge(callbackQuery.getId());
+        }
+        updateDispatcher.dispatch(update, lane, dispatched -> processUpdate(dispatched, callbackData));
+    }
+
+    /**
+     * Answers an update that was shed, without touching the database: a click gets a notification
+     * instead of a plain acknowledgement, a message gets a short reply.
+     *
+     * @param update the shed update
+     */
+    private void replyBusy(Update update) {
+        if (update.hasCallbackQuery()) {
+            outboundMessageQueue.acknowledge(update.getCallbackQuery().getId(), BUSY_TEXT);
+            inFlightCallbacks.release(update.getCallbackQuery());
+        } else if (update.hasMessage()) {
+            executeMessage(SendMessage.builder()
+                    .chatId(update.getMessage().getChatId())
+                    .text(BUSY_TEXT)
+                    .build());
+        }
+        processedUpdates.release(update);
+        log.debug("Shed update {}", update.getUpdateId());
+    }
+
+    /**
+     * Routes updates to appropriate handlers based on update type.
+     * Invoked by the dispatcher, strictly in order for updates of the same chat.
+     * The whole update is handled as one unit of work, so user changes are written once at the end.
+     * Once a click is handled, the same button can be clicked again, and once the update is handled
+     * the offset of processed updates can move past it.
+     *
+     * @param update the incoming Telegram update
+     * @param callbackData the decoded data of the callback query, or null
+     */
+    private void processUpdate(Update update, CallbackData callbackData) {
+        try {
+            userService.runInUnitOfWork(() -> {
+                if (update.hasMessage() && update.getMessage().hasText()) {
+                    onMessageReceived(update);
+                } else if (update.hasCallbackQuery()) {
+                    onCallbackQueryReceived(update, callbackData);
+                }
+            });
+        } finally {
+            if (update.hasCallbackQuery()) {
+                inFlightCallbacks.release(update.getCallbackQuery());
+            }
+            processedUpdates.release(update);
         }
     }
 
     /**
      * Handles incoming text messages (commands).
-     * Routes to appropriate controller based on command text.
+     * Routes to appropriate controller based on command text, timed by the timer of the command.
      *
      * @param update the update containing the message
      */
     private void onMessageReceived(Update update) {
+        OperationTimer timer = botMetrics.commandTimer(update.getMessage().getText());
+        long startedAt = timer.start();
+        try {
+            routeCommand(update);
+        } catch (RuntimeException e) {
+            timer.failure(startedAt);
+            throw e;
+        }
+        timer.success(startedAt);
+    }
+
+    private void routeCommand(Update update) {
         Message msg = update.getMessage();
         String msgText = msg.getText();
+        // commands change the session, so a button may render something else than last time
+        renderedMessages.forget(msg.getChatId());
 
         switch (msgText) {
             case "/start" -> startController.startCommandReceived(update)
@@ -106,48 +233,70 @@ public class MainController extends TelegramLongPollingBot {
      * Routes to appropriate controller based on callback data.
      *
      * @param update the update containing the callback query
+     * @param callbackData the decoded callback data, or null if it matches no button
      */
-    private void onCallbackQueryReceived(Update update) {
-        CallbackQuery callbackQuery = update.getCallbackQuery();
-        String callbackQueryData = callbackQuery.getData();
-
-            switch (callbackQueryData) {
-                case "GET_GUIDE_BUTTON_CLICKED" -> startController.getGuideButtonClicked(callbackQuery)
-                        .forEach(this::executeMessage);
-                case "SHOW_ANSWER_CLICKED" -> executeMessage(educationController.showAnswer(callbackQuery));
-                case "0%_BUTTON_CLICKED" -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.HARDEST));
-                case "25%_BUTTON_CLICKED", "50%_BUTTON_CLICKED" -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.HARD));
-                case "75%_BUTTON_CLICKED", "100%_BUTTON_CLICKED" -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.EASY));
-                case "SHOW_ANSWER_REPETITION_CLICKED" -> executeMessage(educationController.showAnswerRepetition(callbackQuery));
-                case "NEXT_QUESTION_REPETITION_CLICKED" -> executeMessage(educationController.nextQuestionRepetition(callbackQuery));
-                default -> {
-                    if (callbackQueryData.matches("FLASHCARD_PACKAGE_\\d+_SELECTED")) {
-                        executeMessage(educationController.startEducation(callbackQuery));
-                    } else if (callbackQueryData.matches("SHOW_ALL_PACKAGES_\\d+_SELECTED")) {
-                        executeMessage(showAllPackagesController.showPackageDescription(callbackQuery));
-                    } else if(callbackQueryData.matches("(FIRST|PREVIOUS|NEXT)_CARD_\\d+_OF_PACKAGE_\\d+_CLICKED")){
-                        executeMessage(showAllPackagesController.showPreviousOrNextCard(callbackQuery));
-                    }
-                }
+    private void onCallbackQueryReceived(Update update, CallbackData callbackData) {
+        callbackRouter.route(update.getCallbackQuery(), callbackData);
+    }
+
+    /**
+     * Builds the routing table of all inline keyboard buttons.
+     *
+     * @return router with a handler for every supported button
+     */
+    private CallbackRouter createCallbackRouter() {
+        return new CallbackRouter(botMetrics)
+                .on(CallbackOpcode.GET_GUIDE, (callbackQuery, data) -> startController.getGuideButtonClicked(callbackQuery)
+                        .forEach(this::executeMessage))
+                .on(CallbackOpcode.SHOW_ANSWER, rendersOnce((callbackQuery, data) -> executeMessage(educationController.showAnswer(callbackQuery))))
+                .on(CallbackOpcode.ANSWER_0, (callbackQuery, data) -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.HARDEST)))
+                .on(CallbackOpcode.ANSWER_25, (callbackQuery, data) -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.HARD)))
+                .on(CallbackOpcode.ANSWER_50, (callbackQuery, data) -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.HARD)))
+                .on(CallbackOpcode.ANSWER_75, (callbackQuery, data) -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.EASY)))
+                .on(CallbackOpcode.ANSWER_100, (callbackQuery, data) -> executeMessage(educationController.answerButtonClicked(callbackQuery, FlashcardAnswerStatus.EASY)))
+                .on(CallbackOpcode.SHOW_ANSWER_REPETITION, rendersOnce((callbackQuery, data) -> executeMessage(educationController.showAnswerRepetition(callbackQuery))))
+                .on(CallbackOpcode.NEXT_QUESTION_REPETITION, (callbackQuery, data) -> executeMessage(educationController.nextQuestionRepetition(callbackQuery)))
+                .on(CallbackOpcode.START_EDUCATION, (callbackQuery, data) -> executeMessage(educationController.startEducation(callbackQuery, data.first())))
+                .on(CallbackOpcode.SHOW_PACKAGE, (callbackQuery, data) -> executeMessage(showAllPackagesController.showPackageDescription(callbackQuery, data.first())))
+                .on(CallbackOpcode.PACKAGES_PAGE, (callbackQuery, data) -> executeMessage(showAllPackagesController.showPackagesPage(callbackQuery, data.first())))
+                .on(CallbackOpcode.FIRST_CARD, this::showPreviousOrNextCard)
+                .on(CallbackOpcode.PREVIOUS_CARD, this::showPreviousOrNextCard)
+                .on(CallbackOpcode.NEXT_CARD, this::showPreviousOrNextCard);
+    }
+
+    /**
+     * Wraps the handler of a button that renders the same message for as long as the session does not change,
+     * so a repeated click on the message it rendered is skipped before any database read.
+     *
+     * @param handler the handler of the button
+     * @return the handler, skipping clicks whose message already shows their rendering
+     */
+    private CallbackRouter.CallbackHandler rendersOnce(CallbackRouter.CallbackHandler handler) {
+        return (callbackQuery, data) -> {
+            if (renderedMessages.isRenderedBy(callbackQuery)) {
+                botMetrics.skippedCallback();
+                return;
             }
-        }
+            handler.handle(callbackQuery, data);
+            renderedMessages.renderedBy(callbackQuery);
+        };
+    }
+
+    private void showPreviousOrNextCard(CallbackQuery callbackQuery, CallbackData callbackData) {
+        executeMessage(showAllPackagesController.showPreviousOrNextCard(callbackQuery, callbackData.first(), (int) callbackData.second()));
+    }
 
 
     /**
-     * Executes a Telegram API method (sending or editing a message).
-     * Handles any Telegram API exceptions by wrapping them in RuntimeException.
+     * Enqueues a Telegram API method (sending or editing a message) into the outbound queue.
+     * Returns immediately; rate limiting, retries and error logging are handled by the queue.
      *
      * @param <T> the return type of the method
      * @param <Method> the type of BotApiMethod being executed
      * @param message the message to execute
-     * @throws RuntimeException if a TelegramApiException occurs
      */
     private <T extends Serializable, Method extends BotApiMethod<T>> void executeMessage(Method message) {
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            throw new RuntimeException(e);
-        }
+        outboundMessageQueue.enqueue(message);
     }
 
     /**
@@ -20,9 +20,16 @@ public class ShowAllPackagesController {
         return showAllPackagesService.getAllPackages(chatId);
     }
 
+//    show another page of packages
+    public EditMessageText showPackagesPage(CallbackQuery callbackQuery, long firstPackageId) {
+        int messageId = ((Message) callbackQuery.getMessage()).getMessageId();
+        long chatId = callbackQuery.getMessage().getChatId();
+
+        return showAllPackagesService.getPackagesPage(firstPackageId, messageId, chatId);
+    }
+
     //    show description of chosen package
-    public EditMessageText showPackageDescription(CallbackQuery callbackQuery) {
-        long flashcardPackageId = Long.parseLong(callbackQuery.getData().split("_")[3]);
+    public EditMessageText showPackageDescription(CallbackQuery callbackQuery, long flashcardPackageId) {
         int messageId = ((Message) callbackQuery.getMessage()).getMessageId();
         long chatId = callbackQuery.getMessage().getChatId();
 
@@ -30,9 +37,7 @@ public class ShowAllPackagesController {
     }
 
 //    show previous or next card of chosen package
-    public EditMessageText showPreviousOrNextCard(CallbackQuery callbackQuery) {
-        long packageId = Long.parseLong(callbackQuery.getData().split("_")[2]);
-        int indexOfCard = Integer.parseInt(callbackQuery.getData().split("_")[5]);
+    public EditMessageText showPreviousOrNextCard(CallbackQuery callbackQuery, long packageId, int indexOfCard) {
         int messageId = ((Message) callbackQuery.getMessage()).getMessageId();
         long chatId = callbackQuery.getMessage().getChatId();
 
@@ -0,0 +1,61 @@
+package bot.telegram.flashcards.controller;
+
+import bot.telegram.flashcards.config.BotConfig;
+import bot.telegram.flashcards.dispatch.WebhookIntake;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Webhook endpoint of the bot, served on {@code server.port} when {@code bot.webhook.enabled=true}.
+ * Every update is queued and answered with 200 before it is processed, so Telegram keeps delivering
+ * while the bot works; updates shed by a full queue are answered with 200 as well, since a failed delivery
+ * would only be retried into the same full queue.
+ */
+@RestController
+@AllArgsConstructor
+@ConditionalOnProperty(name = "bot.webhook.enabled", havingValue = "true")
+public class WebhookController {
+    /**
+     * Header carrying the secret token given to Telegram when the webhook was set.
+     */
+    static final String SECRET_TOKEN_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final BotConfig config;
+    private final WebhookIntake webhookIntake;
+
+    /**
+     * Receives an update posted by Telegram.
+     *
+     * @param secretToken the secret token sent by Telegram, checked if one is configured
+     * @param update the incoming Telegram update
+     * @return 200 once the update is queued or shed, 401 if the secret token does not match
+     */
+    @PostMapping("${bot.webhook.path:/webhook}")
+    public ResponseEntity<Void> onUpdateReceived(@RequestHeader(value = SECRET_TOKEN_HEADER, required = false) String secretToken,
+                                                 @RequestBody Update update) {
+        if (!isAuthorized(secretToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        webhookIntake.offer(update);
+        return ResponseEntity.ok().build();
+    }
+
+    private boolean isAuthorized(String secretToken) {
+        String expected = config.getWebhookSecret();
+        if (expected == null || expected.isEmpty()) {
+            return true;
+        }
+        return secretToken != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), secretToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
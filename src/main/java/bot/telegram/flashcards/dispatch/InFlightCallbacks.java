@@ -0,0 +1,62 @@
+package bot.telegram.flashcards.dispatch;
+
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Button clicks that are queued or being processed, one per chat.
+ * A click on the same button of the same message while the previous click is still in flight is
+ * a repeat of an impatient user, and processing it again would only redo the same work.
+ *
+ * Only the latest accepted click of a chat is remembered, so clicks on different buttons are never dropped.
+ */
+@Component
+public class InFlightCallbacks {
+    private final Map<Long, ClickedButton> clicks = new ConcurrentHashMap<>();
+
+    /**
+     * Marks the click as in flight, unless the same button of the chat already is.
+     *
+     * @param callbackQuery the incoming callback query
+     * @return true if the click should be processed, false if it repeats a click in flight
+     */
+    public boolean tryAcquire(CallbackQuery callbackQuery) {
+        ClickedButton button = ClickedButton.of(callbackQuery);
+        if (button == null) {
+            return true;
+        }
+
+        ClickedButton previous = clicks.put(button.chatId(), button);
+        return !button.equals(previous);
+    }
+
+    /**
+     * Marks the click as processed, unless a click on another button of the chat was accepted since.
+     *
+     * @param callbackQuery the processed callback query
+     */
+    public void release(CallbackQuery callbackQuery) {
+        ClickedButton button = ClickedButton.of(callbackQuery);
+        if (button != null) {
+            clicks.remove(button.chatId(), button);
+        }
+    }
+
+    /**
+     * @param chatId the chat of the click
+     * @param messageId the message carrying the button
+     * @param data the callback data of the button
+     */
+    private record ClickedButton(long chatId, int messageId, String data) {
+        private static ClickedButton of(CallbackQuery callbackQuery) {
+            if (!(callbackQuery.getMessage() instanceof Message message) || callbackQuery.getData() == null) {
+                return null;
+            }
+            return new ClickedButton(message.getChatId(), message.getMessageId(), callbackQuery.getData());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package bot.telegram.flashcards.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many updates are processed at once.
+ * While slots are free an update takes one right away; once they are all taken, waiting updates queue up
+ * in their lane and every freed slot is handed to the next lane of a weighted round robin schedule
+ * that has a waiting update, in arrival order within the lane.
+ */
+final class LaneGate {
+    private final UpdateLane[] schedule;
+    private final Map<UpdateLane, Queue<CountDownLatch>> waiting = new EnumMap<>(UpdateLane.class);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int available;
+    private int waiters;
+    private int turn;
+
+    LaneGate(int permits) {
+        this.available = permits;
+        this.schedule = buildSchedule();
+        for (UpdateLane lane : UpdateLane.values()) {
+            waiting.put(lane, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Takes a processing slot, waiting for one if none is free. Interrupts are kept for the caller.
+     *
+     * @param lane the lane of the update to process
+     */
+    void acquire(UpdateLane lane) {
+        CountDownLatch granted;
+        lock.lock();
+        try {
+            if (available > 0 && waiters == 0) {
+                available--;
+                return;
+            }
+            granted = new CountDownLatch(1);
+            waiting.get(lane).add(granted);
+            waiters++;
+        } finally {
+            lock.unlock();
+        }
+        awaitUninterruptibly(granted);
+    }
+
+    /**
+     * Frees a slot, handing it straight to the next waiting update if there is one.
+     */
+    void release() {
+        lock.lock();
+        try {
+            CountDownLatch next = pollNext();
+            if (next == null) {
+                available++;
+            } else {
+                next.countDown();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of updates waiting for a slot
+     */
+    int getWaiting() {
+        lock.lock();
+        try {
+            return waiters;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CountDownLatch pollNext() {
+        if (waiters == 0) {
+            return null;
+        }
+        for (int i = 0; i < schedule.length; i++) {
+            UpdateLane lane = schedule[(turn + i) % schedule.length];
+            CountDownLatch next = waiting.get(lane).poll();
+            if (next != null) {
+                turn = (turn + i + 1) % schedule.length;
+                waiters--;
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Interleaves the lanes by weight, e.g. weights 4, 2 and 1 give STUDY, COMMAND, BROWSING, STUDY, COMMAND,
+     * STUDY, STUDY, so no lane waits for a whole round of a heavier one.
+     */
+    private static UpdateLane[] buildSchedule() {
+        int maxWeight = 0;
+        for (UpdateLane lane : UpdateLane.values()) {
+            maxWeight = Math.max(maxWeight, lane.getWeight());
+        }
+        List<UpdateLane> schedule = new ArrayList<>();
+        for (int round = 0; round < maxWeight; round++) {
+            for (UpdateLane lane : UpdateLane.values()) {
+                if (round < lane.getWeight()) {
+                    schedule.add(lane);
+                }
+            }
+        }
+        return schedule.toArray(UpdateLane[]::new);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
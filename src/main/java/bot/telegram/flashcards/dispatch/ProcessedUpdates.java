@@ -0,0 +1,163 @@
+package bot.telegram.flashcards.dispatch;
+
+import bot.telegram.flashcards.config.BotConfig;
+import bot.telegram.flashcards.models.UpdateOffset;
+import bot.telegram.flashcards.repository.UpdateOffsetRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rejects updates that Telegram delivers again, so a replayed update never runs twice
+ * (a replayed "Idk" click would duplicate the current card once more).
+ *
+ * Recently received update IDs are kept in a direct-mapped ring of {@code bot.updates.dedup-window} slots,
+ * indexed by the low bits of the ID: update IDs are sequential, so the ring holds the last window of updates
+ * and a repeat is found with one lock-free read. Updates older than the ring are covered by the offset below.
+ *
+ * Every {@code bot.updates.offset-interval} the lowest update ID that is not fully processed is saved
+ * to the database, and again on shutdown. After a restart the saved offset is confirmed to Telegram before long
+ * polling starts (see {@link #getRestoredOffset}), and updates below it are rejected, so the bot resumes where
+ * it stopped without processing the redelivered window again. Only updates processed after the last checkpoint,
+ * or finished while an older update was still in flight, can run again after a crash. A checkpoint older
+ * than {@code bot.updates.offset-max-age} is ignored: after a week without updates Telegram no longer
+ * numbers them sequentially.
+ */
+@Slf4j
+@Component
+public class ProcessedUpdates {
+    /**
+     * Value of an empty slot; slots hold update IDs plus one, since update IDs start at zero.
+     */
+    private static final long EMPTY = 0L;
+
+    private final UpdateOffsetRepository updateOffsetRepository;
+    private final String botName;
+    private final AtomicLongArray recentUpdates;
+    private final int mask;
+    private final NavigableSet<Integer> inFlight = new ConcurrentSkipListSet<>();
+    private final int restoredOffset;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "update-offset-writer"));
+
+    private final AtomicInteger lastReceived = new AtomicInteger(-1);
+    private volatile int savedOffset;
+
+    public ProcessedUpdates(UpdateOffsetRepository updateOffsetRepository,
+                            BotConfig config,
+                            @Value("${bot.updates.dedup-window:4096}") int dedupWindow,
+                            @Value("${bot.updates.offset-interval:1s}") Duration offsetInterval,
+                            @Value("${bot.updates.offset-max-age:7d}") Duration offsetMaxAge) {
+        this.updateOffsetRepository = updateOffsetRepository;
+        this.botName = config.getName();
+        int slots = Integer.highestOneBit(Math.max(dedupWindow - 1, 1)) << 1;
+        this.recentUpdates = new AtomicLongArray(slots);
+        this.mask = slots - 1;
+        this.restoredOffset = restoreOffset(offsetMaxAge);
+        this.savedOffset = restoredOffset;
+        executor.scheduleWithFixedDelay(this::runCheckpoint, offsetInterval.toMillis(), offsetInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks the update as received and in flight, unless it was received before.
+     *
+     * @param update the incoming Telegram update
+     * @return true if the update should be processed, false if it is a repeat
+     */
+    public boolean tryAcquire(Update update) {
+        int updateId = update.getUpdateId();
+        if (updateId < restoredOffset) {
+            return false;
+        }
+        long key = updateId + 1L;
+        if (recentUpdates.getAndSet(updateId & mask, key) == key) {
+            return false;
+        }
+        inFlight.add(updateId);
+        lastReceived.accumulateAndGet(updateId, Math::max);
+        return true;
+    }
+
+    /**
+     * Marks the update as fully processed, or as dropped without processing.
+     *
+     * @param update an update accepted by {@link #tryAcquire}
+     */
+    public void release(Update update) {
+        inFlight.remove(update.getUpdateId());
+    }
+
+    /**
+     * Returns the lowest update ID that is not fully processed: the oldest update in flight,
+     * or the one after the last received update if none is.
+     *
+     * @return the offset to resume from
+     */
+    public int getOffset() {
+        int last = lastReceived.get();
+        Integer oldest = inFlight.isEmpty() ? null : inFlight.first();
+        if (oldest != null) {
+            return oldest;
+        }
+        return last < 0 ? savedOffset : last + 1;
+    }
+
+    /**
+     * @return the offset saved before the last shutdown, or 0 if there is none or it is too old
+     */
+    public int getRestoredOffset() {
+        return restoredOffset;
+    }
+
+    /**
+     * Saves the offset if it moved since the last checkpoint.
+     */
+    public void checkpoint() {
+        int offset = getOffset();
+        if (offset == savedOffset) {
+            return;
+        }
+        updateOffsetRepository.save(new UpdateOffset(botName, offset, LocalDateTime.now()));
+        savedOffset = offset;
+    }
+
+    private int restoreOffset(Duration offsetMaxAge) {
+        UpdateOffset saved = updateOffsetRepository.findById(botName).orElse(null);
+        if (saved == null) {
+            return 0;
+        }
+        if (saved.getSavedAt().isBefore(LocalDateTime.now().minus(offsetMaxAge))) {
+            log.info("Ignoring update offset {} saved at {}", saved.getNextUpdateId(), saved.getSavedAt());
+            return 0;
+        }
+        log.info("Resuming from update {}", saved.getNextUpdateId());
+        return saved.getNextUpdateId();
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            log.error("Cannot save the update offset", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        runCheckpoint();
+    }
+}
@@ -0,0 +1,313 @@
+package bot.telegram.flashcards.dispatch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches incoming updates to per-chat mailboxes drained by virtual threads.
+ * Updates of one chat are processed strictly in arrival order, so per-user session state
+ * (current flashcard, learning queue) is never touched concurrently, while different chats
+ * are processed in parallel instead of one by one on the long polling thread.
+ *
+ * A mailbox exists in the map only while a drainer is active for it: enqueueing and removal
+ * both go through {@link ConcurrentHashMap#compute}, so there is never more than one drainer per chat.
+ *
+ * At most {@code bot.updates.max-concurrency} updates are processed at once. Every update belongs to an
+ * {@link UpdateLane} with a bounded number of updates waiting to be processed
+ * ({@code bot.updates.capacity.study}, {@code .command}, {@code .browsing}); an update whose lane is full is
+ * shed instead of being queued. Waiting updates get free slots by the weights of their lanes.
+ */
+@Slf4j
+@Component
+public class UpdateDispatcher {
+    /**
+     * Key used for updates that are not bound to a chat (they are still processed in order among themselves).
+     */
+    private static final long NO_CHAT = 0L;
+
+    private final Map<Long, ChatMailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LaneGate gate;
+    private final int[] laneCapacities = new int[UpdateLane.values().length];
+    private final AtomicIntegerArray laneDepths = new AtomicIntegerArray(UpdateLane.values().length);
+    private final AtomicLongArray shedUpdates = new AtomicLongArray(UpdateLane.values().length);
+
+    /**
+     * Creates a dispatcher whose lanes are never full and that processes as many updates at once as arrive.
+     */
+    public UpdateDispatcher() {
+        this(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Autowired
+    public UpdateDispatcher(@Value("${bot.updates.max-concurrency:10}") int maxConcurrency,
+                            @Value("${bot.updates.capacity.study:10000}") int studyCapacity,
+                            @Value("${bot.updates.capacity.command:5000}") int commandCapacity,
+                            @Value("${bot.updates.capacity.browsing:500}") int browsingCapacity) {
+        this.gate = new LaneGate(maxConcurrency);
+        laneCapacities[UpdateLane.STUDY.ordinal()] = studyCapacity;
+        laneCapacities[UpdateLane.COMMAND.ordinal()] = commandCapacity;
+        laneCapacities[UpdateLane.BROWSING.ordinal()] = browsingCapacity;
+    }
+
+    /**
+     * Puts the update into the mailbox of its chat and starts a drainer if the chat had none,
+     * unless the lane of the update is full.
+     *
+     * @param update the incoming Telegram update
+     * @param handler the processing logic, invoked on a virtual thread
+     * @return false if the update was shed and the handler will not be invoked
+     */
+    public boolean dispatch(Update update, Consumer<Update> handler) {
+        UpdateLane lane = UpdateLane.of(update);
+        if (!tryReserve(lane)) {
+            return false;
+        }
+        dispatch(update, lane, handler);
+        return true;
+    }
+
+    /**
+     * Takes a place in the lane for an update about to be dispatched, unless the lane is full.
+     * Lets the caller answer the update before its handler can start.
+     *
+     * @param lane the lane of the update
+     * @return false if the lane is full and the update is shed
+     */
+    public boolean tryReserve(UpdateLane lane) {
+        int laneIndex = lane.ordinal();
+        if (laneDepths.incrementAndGet(laneIndex) > laneCapacities[laneIndex]) {
+            laneDepths.decrementAndGet(laneIndex);
+            shedUpdates.incrementAndGet(laneIndex);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Puts the update into the mailbox of its chat and starts a drainer if the chat had none.
+     *
+     * @param update the incoming Telegram update
+     * @param lane the lane of the update, reserved by {@link #tryReserve}
+     * @param handler the processing logic, invoked on a virtual thread
+     */
+    public void dispatch(Update update, UpdateLane lane, Consumer<Update> handler) {
+        queueDepth.incrementAndGet();
+        enqueue(chatIdOf(update), new Envelope(update, lane, handler, System.nanoTime()));
+    }
+
+    /**
+     * Runs the task while no update of the given chats is being processed.
+     * A barrier is put into the mailbox of each chat; the task runs once every chat has reached its barrier,
+     * and updates arriving meanwhile wait behind it. Barriers take no processing slot, so chats with nothing
+     * in flight reach them at once.
+     *
+     * @param chatIds the Telegram chat IDs
+     * @param task the work to run on the calling thread
+     * @throws InterruptedException if interrupted while waiting for the chats; the task is not run then
+     */
+    public void runExclusively(Collection<Long> chatIds, Runnable task) throws InterruptedException {
+        CountDownLatch reached = new CountDownLatch(chatIds.size());
+        CountDownLatch finished = new CountDownLatch(1);
+        try {
+            for (Long chatId : chatIds) {
+                enqueue(chatId, new Envelope(null, null, ignored -> {
+                    reached.countDown();
+                    awaitUninterruptibly(finished);
+                }, System.nanoTime()));
+            }
+            reached.await();
+            task.run();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private void enqueue(long chatId, Envelope envelope) {
+        ChatMailbox mailbox = mailboxes.compute(chatId, (id, existing) -> {
+            ChatMailbox target = existing != null ? existing : new ChatMailbox(id);
+            target.queue.add(envelope);
+            return target;
+        });
+
+        if (mailbox.started.compareAndSet(false, true)) {
+            executor.execute(() -> drain(mailbox));
+        }
+    }
+
+    /**
+     * Processes the mailbox until it is empty, then removes it atomically.
+     *
+     * @param mailbox the mailbox of a single chat
+     */
+    private void drain(ChatMailbox mailbox) {
+        while (true) {
+            Envelope envelope = mailbox.queue.poll();
+            if (envelope == null) {
+                ChatMailbox remaining = mailboxes.computeIfPresent(mailbox.chatId,
+                        (id, box) -> box.queue.isEmpty() ? null : box);
+                if (remaining == null) {
+                    return;
+                }
+                continue;
+            }
+
+            mailbox.processingSince = envelope.enqueuedAt;
+            if (envelope.lane == null) {
+                // a barrier of runExclusively, which holds the chat without taking a processing slot
+                envelope.handler.accept(null);
+                mailbox.processingSince = 0L;
+                continue;
+            }
+            gate.acquire(envelope.lane);
+            queueDepth.decrementAndGet();
+            laneDepths.decrementAndGet(envelope.lane.ordinal());
+            try {
+                envelope.handler.accept(envelope.update);
+            } catch (Exception e) {
+                log.error("Error while processing update {} of chat {}", envelope.update.getUpdateId(), mailbox.chatId, e);
+            } finally {
+                gate.release();
+                mailbox.processingSince = 0L;
+            }
+        }
+    }
+
+    /**
+     * @return the number of updates waiting in all mailboxes
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @param lane a lane of updates
+     * @return the number of updates of the lane waiting to be processed
+     */
+    public int getLaneDepth(UpdateLane lane) {
+        return laneDepths.get(lane.ordinal());
+    }
+
+    /**
+     * @param lane a lane of updates
+     * @return the number of updates of the lane shed since startup because the lane was full
+     */
+    public long getShedUpdates(UpdateLane lane) {
+        return shedUpdates.get(lane.ordinal());
+    }
+
+    /**
+     * @return the number of chats that currently have pending or in-flight updates
+     */
+    public int getActiveChats() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Returns how long the oldest not yet finished update of a chat has been waiting.
+     *
+     * @param chatId the Telegram chat ID
+     * @return the lag of the chat, or {@link Duration#ZERO} if the chat has nothing pending
+     */
+    public Duration getChatLag(long chatId) {
+        ChatMailbox mailbox = mailboxes.get(chatId);
+        return mailbox == null ? Duration.ZERO : Duration.ofNanos(mailbox.lagNanos(System.nanoTime()));
+    }
+
+    /**
+     * @return the largest lag among all active chats
+     */
+    public Duration getMaxChatLag() {
+        long now = System.nanoTime();
+        long max = 0L;
+        for (ChatMailbox mailbox : mailboxes.values()) {
+            max = Math.max(max, mailbox.lagNanos(now));
+        }
+        return Duration.ofNanos(max);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+    /**
+     * Extracts the chat the update belongs to.
+     *
+     * @param update the incoming Telegram update
+     * @return the chat ID, or {@link #NO_CHAT} if the update is not bound to a chat
+     */
+    public static long chatIdOf(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        return NO_CHAT;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * An update with its lane and handler, or a barrier of {@link #runExclusively} if the lane is null.
+     */
+    private record Envelope(Update update, UpdateLane lane, Consumer<Update> handler, long enqueuedAt) {
+    }
+
+    private static final class ChatMailbox {
+        private final long chatId;
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile long processingSince;
+
+        private ChatMailbox(long chatId) {
+            this.chatId = chatId;
+        }
+
+        private long lagNanos(long now) {
+            long since = processingSince;
+            if (since == 0L) {
+                Envelope head = queue.peek();
+                if (head == null) {
+                    return 0L;
+                }
+                since = head.enqueuedAt;
+            }
+            return now - since;
+        }
+    }
+}
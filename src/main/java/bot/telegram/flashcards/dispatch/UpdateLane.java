@@ -0,0 +1,67 @@
+package bot.telegram.flashcards.dispatch;
+
+import bot.telegram.flashcards.misc.CallbackData;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Classes of updates, each with its own bounded queue in the {@link UpdateDispatcher}.
+ * When updates wait for a free processing slot, the slots are handed out by weighted round robin,
+ * so study clicks are served first without starving commands and catalog browsing.
+ */
+public enum UpdateLane {
+    /**
+     * Clicks of a learning session: they change its state and the user waits for the next card.
+     */
+    STUDY(4),
+    /**
+     * Text messages, commands or not.
+     */
+    COMMAND(2),
+    /**
+     * Clicks browsing the catalog and the guide, which are read only and can be clicked again.
+     */
+    BROWSING(1);
+
+    private final int weight;
+
+    UpdateLane(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return the number of processing slots the lane gets in a round of the weighted round robin
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Classifies an update by its command or button, decoding the data of a callback query.
+     *
+     * @param update the incoming Telegram update
+     * @return the lane of the update
+     */
+    public static UpdateLane of(Update update) {
+        if (!update.hasCallbackQuery()) {
+            return COMMAND;
+        }
+        return of(CallbackData.decode(update.getCallbackQuery().getData()));
+    }
+
+    /**
+     * Classifies a click by its button.
+     *
+     * @param callbackData the decoded data of a callback query, or null if it matches no button
+     * @return the lane of the click; clicks that match no button are browsing
+     */
+    public static UpdateLane of(CallbackData callbackData) {
+        if (callbackData == null) {
+            return BROWSING;
+        }
+        return switch (callbackData.opcode()) {
+            case SHOW_ANSWER, ANSWER_0, ANSWER_25, ANSWER_50, ANSWER_75, ANSWER_100,
+                 SHOW_ANSWER_REPETITION, NEXT_QUESTION_REPETITION, START_EDUCATION -> STUDY;
+            case GET_GUIDE, SHOW_PACKAGE, FIRST_CARD, PREVIOUS_CARD, NEXT_CARD, PACKAGES_PAGE -> BROWSING;
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package bot.telegram.flashcards.dispatch;
+
+import bot.telegram.flashcards.metrics.BotMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue between the webhook endpoint and the dispatch path of the bot.
+ * The endpoint only offers the update and answers Telegram right away; a receiver thread hands the updates
+ * over to the same handler long polling uses, in the order they were received.
+ *
+ * When the queue is full the update is shed instead of holding the request, since Telegram would otherwise
+ * stop delivering updates of all chats until it is answered. At most {@code bot.webhook.queue-capacity}
+ * updates are held in memory.
+ */
+@Slf4j
+@Component
+public class WebhookIntake {
+    private final BlockingQueue<Update> updates;
+    private final BotMetrics botMetrics;
+
+    private volatile Thread receiver;
+
+    public WebhookIntake(@Value("${bot.webhook.queue-capacity:10000}") int capacity, BotMetrics botMetrics) {
+        this.updates = new ArrayBlockingQueue<>(capacity);
+        this.botMetrics = botMetrics;
+    }
+
+    /**
+     * Starts handing queued updates over to the handler.
+     * Updates offered before the start are kept and handled afterwards.
+     *
+     * @param handler the entry point of the bot for incoming updates
+     */
+    public synchronized void start(Consumer<Update> handler) {
+        if (receiver == null) {
+            receiver = Thread.ofVirtual().name("webhook-receiver").start(() -> runReceiver(handler));
+        }
+    }
+
+    /**
+     * Queues an update received by the webhook, without waiting for room.
+     *
+     * @param update the incoming Telegram update
+     * @return false if the queue was full and the update was shed
+     */
+    public boolean offer(Update update) {
+        if (updates.offer(update)) {
+            return true;
+        }
+        botMetrics.shedUpdate();
+        log.warn("Webhook queue is full, update {} was shed", update.getUpdateId());
+        return false;
+    }
+
+    /**
+     * @return the number of received updates not yet handed over to the bot
+     */
+    public int getQueuedUpdates() {
+        return updates.size();
+    }
+
+    private void runReceiver(Consumer<Update> handler) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                handler.accept(updates.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Webhook receiver error", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread current = receiver;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package bot.telegram.flashcards.metrics;
+
+import bot.telegram.flashcards.cache.FlashcardContentCache;
+import bot.telegram.flashcards.dispatch.UpdateDispatcher;
+import bot.telegram.flashcards.dispatch.UpdateLane;
+import bot.telegram.flashcards.dispatch.WebhookIntake;
+import bot.telegram.flashcards.outbound.OutboundMessageQueue;
+import bot.telegram.flashcards.service.session.StudySessionCheckpointWriter;
+import bot.telegram.flashcards.service.session.StudySessionEngine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gauges of the queues and sessions of the bot, read when the registry is scraped.
+ * The connection pool is measured by the {@code hikaricp.connections.*} gauges of Spring Boot, and the content
+ * cache of cards by the {@code cache.*} meters of Caffeine.
+ */
+@Component
+@AllArgsConstructor
+public class BotGauges implements MeterBinder {
+    private final UpdateDispatcher updateDispatcher;
+    private final WebhookIntake webhookIntake;
+    private final OutboundMessageQueue outboundMessageQueue;
+    private final StudySessionEngine studySessionEngine;
+    private final StudySessionCheckpointWriter checkpointWriter;
+    private final FlashcardContentCache flashcardContentCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bot.sessions.active", studySessionEngine, StudySessionEngine::getActiveSessions)
+                .description("Study sessions held in memory")
+                .register(registry);
+        Gauge.builder("bot.sessions.checkpoints.pending", checkpointWriter, StudySessionCheckpointWriter::getPendingCheckpoints)
+                .description("Study sessions waiting to be written to the database")
+                .register(registry);
+        Gauge.builder("bot.updates.queued", updateDispatcher, UpdateDispatcher::getQueueDepth)
+                .description("Updates waiting in the mailboxes of chats")
+                .register(registry);
+        Gauge.builder("bot.updates.active.chats", updateDispatcher, UpdateDispatcher::getActiveChats)
+                .description("Chats with pending or in-flight updates")
+                .register(registry);
+        TimeGauge.builder("bot.updates.max.lag", updateDispatcher, TimeUnit.MILLISECONDS,
+                        dispatcher -> dispatcher.getMaxChatLag().toMillis())
+                .description("Wait of the oldest unfinished update among all chats")
+                .register(registry);
+        for (UpdateLane lane : UpdateLane.values()) {
+            String name = lane.name().toLowerCase();
+            Gauge.builder("bot.updates.lane.queued", updateDispatcher, dispatcher -> dispatcher.getLaneDepth(lane))
+                    .description("Updates of the lane waiting to be processed")
+                    .tag("lane", name)
+                    .register(registry);
+            FunctionCounter.builder("bot.updates.shed", updateDispatcher, dispatcher -> dispatcher.getShedUpdates(lane))
+                    .description("Updates answered with a busy notice because their lane was full")
+                    .tag("lane", name)
+                    .register(registry);
+        }
+        Gauge.builder("bot.webhook.queued", webhookIntake, WebhookIntake::getQueuedUpdates)
+                .description("Updates received by the webhook and not yet dispatched")
+                .register(registry);
+        Gauge.builder("bot.outbound.pending", outboundMessageQueue, OutboundMessageQueue::getPendingMessages)
+                .description("Messages waiting to be sent to Telegram")
+                .register(registry);
+        flashcardContentCache.bindTo(registry);
+        Gauge.builder("bot.content.cache.weight", flashcardContentCache, FlashcardContentCache::getWeightedSize)
+                .description("Estimated memory held by the cached content of cards")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,198 @@
+package bot.telegram.flashcards.metrics;
+
+import bot.telegram.flashcards.misc.CallbackOpcode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Timers of the bot: one per command, per button, per education operation and per Bot API method,
+ * each tagged with its outcome and published with a percentile histogram.
+ * Tags only take values from fixed sets (commands of the menu, opcodes, method names), so the number of
+ * time series stays small whatever users type.
+ *
+ * With {@code bot.metrics.enabled=false}, or without a meter registry, every timer is a no-op
+ * that neither reads the clock nor allocates.
+ */
+@Component
+public class BotMetrics {
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_FAILURE = "failure";
+
+    /**
+     * Route of every text that is not a command of the menu.
+     */
+    private static final String UNKNOWN_COMMAND = "unknown";
+    private static final List<String> COMMANDS = List.of("/start", "/help", "/showallpackages", "/stop");
+
+    private final MeterRegistry registry;
+    private final Map<String, OperationTimer> commands = new HashMap<>();
+    private final Map<CallbackOpcode, OperationTimer> callbacks = new EnumMap<>(CallbackOpcode.class);
+    private final Map<String, OperationTimer> apiMethods = new ConcurrentHashMap<>();
+    private final Counter unknownCallbacks;
+    private final Counter duplicateCallbacks;
+    private final Counter skippedCallbacks;
+    private final Counter skippedEdits;
+    private final Counter shedUpdates;
+    private final Counter replayedUpdates;
+
+    @Autowired
+    public BotMetrics(ObjectProvider<MeterRegistry> registry,
+                      @Value("${bot.metrics.enabled:true}") boolean enabled) {
+        this(enabled ? registry.getIfAvailable() : null);
+    }
+
+    private BotMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (String command : COMMANDS) {
+            commands.put(command, timer("bot.commands", "route", command));
+        }
+        commands.put(UNKNOWN_COMMAND, timer("bot.commands", "route", UNKNOWN_COMMAND));
+        for (CallbackOpcode opcode : CallbackOpcode.values()) {
+            callbacks.put(opcode, timer("bot.callbacks", "route", opcode.name()));
+        }
+        this.unknownCallbacks = registry == null ? null : Counter.builder("bot.callbacks.unknown")
+                .description("Callback queries whose data matches no button")
+                .register(registry);
+        this.duplicateCallbacks = registry == null ? null : Counter.builder("bot.callbacks.duplicate")
+                .description("Repeated clicks dropped while the previous click was in flight")
+                .register(registry);
+        this.skippedCallbacks = registry == null ? null : Counter.builder("bot.callbacks.skipped")
+                .description("Clicks not handled because the message already shows what they render")
+                .register(registry);
+        this.skippedEdits = registry == null ? null : Counter.builder("bot.outbound.edits.skipped")
+                .description("Edits not sent because the message already shows the same text and keyboard")
+                .register(registry);
+        this.shedUpdates = registry == null ? null : Counter.builder("bot.webhook.shed")
+                .description("Updates received by the webhook and dropped because its queue was full")
+                .register(registry);
+        this.replayedUpdates = registry == null ? null : Counter.builder("bot.updates.replayed")
+                .description("Updates dropped because they were received or processed before")
+                .register(registry);
+    }
+
+    /**
+     * @return metrics that record nothing, for components created outside of the Spring context
+     */
+    public static BotMetrics disabled() {
+        return new BotMetrics(null);
+    }
+
+    /**
+     * @param text the text of a message
+     * @return the timer of the command, or of unknown commands if the text is not a command of the menu
+     */
+    public OperationTimer commandTimer(String text) {
+        OperationTimer timer = commands.get(text);
+        return timer != null ? timer : commands.get(UNKNOWN_COMMAND);
+    }
+
+    /**
+     * @param opcode the pressed button
+     * @return the timer of the button
+     */
+    public OperationTimer callbackTimer(CallbackOpcode opcode) {
+        return callbacks.get(opcode);
+    }
+
+    /**
+     * Registers the timer of an operation of the education service; called once per operation at startup.
+     *
+     * @param operation the name of the operation
+     * @return the timer of the operation
+     */
+    public OperationTimer educationTimer(String operation) {
+        return timer("bot.education", "operation", operation);
+    }
+
+    /**
+     * @param method the name of a Bot API method, as returned by {@code BotApiMethod.getMethod()}
+     * @return the timer of the requests of the method
+     */
+    public OperationTimer apiTimer(String method) {
+        if (registry == null) {
+            return OperationTimer.DISABLED;
+        }
+        OperationTimer timer = apiMethods.get(method);
+        return timer != null ? timer : apiMethods.computeIfAbsent(method, name -> timer("bot.telegram.requests", "method", name));
+    }
+
+    /**
+     * Counts a callback query that no handler is registered for.
+     */
+    public void unknownCallback() {
+        if (unknownCallbacks != null) {
+            unknownCallbacks.increment();
+        }
+    }
+
+    /**
+     * Counts a repeated click that was dropped.
+     */
+    public void duplicateCallback() {
+        if (duplicateCallbacks != null) {
+            duplicateCallbacks.increment();
+        }
+    }
+
+    /**
+     * Counts a click that was not handled because its message already shows what it renders.
+     */
+    public void skippedCallback() {
+        if (skippedCallbacks != null) {
+            skippedCallbacks.increment();
+        }
+    }
+
+    /**
+     * Counts an edit that was not sent because it would not change the message.
+     */
+    public void skippedEdit() {
+        if (skippedEdits != null) {
+            skippedEdits.increment();
+        }
+    }
+
+    /**
+     * Counts an update the webhook dropped because its queue was full.
+     */
+    public void shedUpdate() {
+        if (shedUpdates != null) {
+            shedUpdates.increment();
+        }
+    }
+
+    /**
+     * Counts an update that was dropped because it was received before.
+     */
+    public void replayedUpdate() {
+        if (replayedUpdates != null) {
+            replayedUpdates.increment();
+        }
+    }
+
+    private OperationTimer timer(String name, String tag, String value) {
+        if (registry == null) {
+            return OperationTimer.DISABLED;
+        }
+        return new OperationTimer(register(name, tag, value, OUTCOME_SUCCESS), register(name, tag, value, OUTCOME_FAILURE));
+    }
+
+    private Timer register(String name, String tag, String value, String outcome) {
+        return Timer.builder(name)
+                .tag(tag, value)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
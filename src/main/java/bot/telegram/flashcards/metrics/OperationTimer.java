@@ -0,0 +1,51 @@
+package bot.telegram.flashcards.metrics;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pair of timers of one operation, one per outcome, registered once at startup.
+ * Used as {@code start()} followed by {@code success} or {@code failure}, so timing a call allocates nothing;
+ * the disabled timer does not even read the clock.
+ */
+public final class OperationTimer {
+    static final OperationTimer DISABLED = new OperationTimer(null, null);
+
+    private final Timer success;
+    private final Timer failure;
+
+    OperationTimer(Timer success, Timer failure) {
+        this.success = success;
+        this.failure = failure;
+    }
+
+    /**
+     * @return the start of the operation, to pass to {@link #success} or {@link #failure}
+     */
+    public long start() {
+        return success == null ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Records an operation that completed normally.
+     *
+     * @param startedAt the value returned by {@link #start()}
+     */
+    public void success(long startedAt) {
+        if (success != null) {
+            success.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records an operation that failed.
+     *
+     * @param startedAt the value returned by {@link #start()}
+     */
+    public void failure(long startedAt) {
+        if (failure != null) {
+            failure.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package bot.telegram.flashcards.misc;
+
+import java.util.Arrays;
+
+/**
+ * Decoded callback data of an inline keyboard button.
+ * Decoding walks a prefix trie built once from the {@link CallbackOpcode} templates:
+ * a single pass over the string, without regular expressions and without splitting.
+ *
+ * @param opcode the pressed button
+ * @param first the first number argument, 0 if the button has none
+ * @param second the second number argument, 0 if the button has fewer than two
+ */
+public record CallbackData(CallbackOpcode opcode, long first, long second) {
+    /**
+     * Longest number that is parsed without the risk of overflowing a long.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    private static final TrieNode ROOT = buildTrie();
+
+    /**
+     * Decodes callback data received from Telegram.
+     *
+     * @param data the raw callback data
+     * @return decoded callback data, or null if the data does not match any known button
+     */
+    public static CallbackData decode(String data) {
+        if (data == null) {
+            return null;
+        }
+
+        TrieNode node = ROOT;
+        long first = 0;
+        long second = 0;
+        int arguments = 0;
+        int length = data.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = data.charAt(i);
+            TrieNode child = node.child(c);
+            if (child != null) {
+                node = child;
+                i++;
+                continue;
+            }
+            if (node.number == null || !isDigit(c)) {
+                return null;
+            }
+
+            int start = i;
+            long value = 0;
+            while (i < length && isDigit(data.charAt(i))) {
+                if (i - start == MAX_DIGITS) {
+                    return null;
+                }
+                value = value * 10 + (data.charAt(i) - '0');
+                i++;
+            }
+            if (arguments++ == 0) {
+                first = value;
+            } else {
+                second = value;
+            }
+            node = node.number;
+        }
+
+        return node.opcode == null ? null : new CallbackData(node.opcode, first, second);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static TrieNode buildTrie() {
+        TrieNode root = new TrieNode();
+        for (CallbackOpcode opcode : CallbackOpcode.values()) {
+            String template = opcode.getTemplate();
+            TrieNode node = root;
+            int i = 0;
+            while (i < template.length()) {
+                if (template.startsWith(CallbackOpcode.PLACEHOLDER, i)) {
+                    node = node.numberChild();
+                    i += CallbackOpcode.PLACEHOLDER.length();
+                } else {
+                    node = node.childOrCreate(template.charAt(i));
+                    i++;
+                }
+            }
+            if (node.opcode != null) {
+                throw new IllegalStateException("Duplicate callback template: " + template);
+            }
+            node.opcode = opcode;
+        }
+        return root;
+    }
+
+    /**
+     * Trie node with literal character edges and at most one number edge.
+     * Literal digit edges and a number edge never share a node, so decoding needs no backtracking.
+     */
+    private static final class TrieNode {
+        private char[] chars = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private TrieNode number;
+        private CallbackOpcode opcode;
+
+        private TrieNode child(char c) {
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private TrieNode childOrCreate(char c) {
+            TrieNode existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            if (number != null && isDigit(c)) {
+                throw new IllegalStateException("Ambiguous callback templates: digit after a number placeholder");
+            }
+
+            TrieNode created = new TrieNode();
+            chars = Arrays.copyOf(chars, chars.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            chars[chars.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+
+        private TrieNode numberChild() {
+            if (number == null) {
+                for (char c : chars) {
+                    if (isDigit(c)) {
+                        throw new IllegalStateException("Ambiguous callback templates: number placeholder next to a digit");
+                    }
+                }
+                number = new TrieNode();
+            }
+            return number;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package bot.telegram.flashcards.misc;
+
+/**
+ * Enum of all inline keyboard buttons the bot can receive, together with their callback data template.
+ * A {@code {}} placeholder in a template stands for a non-negative number argument.
+ * The templates keep the historical wire format, so buttons of already sent messages stay valid.
+ *
+ * To add a new button, add a constant here, register a handler for it in MainController
+ * and give it a lane in {@code UpdateLane}.
+ */
+public enum CallbackOpcode {
+    GET_GUIDE("GET_GUIDE_BUTTON_CLICKED"),
+    SHOW_ANSWER("SHOW_ANSWER_CLICKED"),
+    ANSWER_0("0%_BUTTON_CLICKED"),
+    ANSWER_25("25%_BUTTON_CLICKED"),
+    ANSWER_50("50%_BUTTON_CLICKED"),
+    ANSWER_75("75%_BUTTON_CLICKED"),
+    ANSWER_100("100%_BUTTON_CLICKED"),
+    SHOW_ANSWER_REPETITION("SHOW_ANSWER_REPETITION_CLICKED"),
+    NEXT_QUESTION_REPETITION("NEXT_QUESTION_REPETITION_CLICKED"),
+
+    /**
+     * Arguments: package ID.
+     */
+    START_EDUCATION("FLASHCARD_PACKAGE_{}_SELECTED"),
+
+    /**
+     * Arguments: package ID.
+     */
+    SHOW_PACKAGE("SHOW_ALL_PACKAGES_{}_SELECTED"),
+
+    /**
+     * Arguments: package ID, index of the card.
+     */
+    FIRST_CARD("FIRST_CARD_{}_OF_PACKAGE_{}_CLICKED"),
+
+    /**
+     * Arguments: package ID, index of the card.
+     */
+    PREVIOUS_CARD("PREVIOUS_CARD_{}_OF_PACKAGE_{}_CLICKED"),
+
+    /**
+     * Arguments: package ID, index of the card.
+     */
+    NEXT_CARD("NEXT_CARD_{}_OF_PACKAGE_{}_CLICKED"),
+
+    /**
+     * Arguments: ID of the first package of the catalog page.
+     */
+    PACKAGES_PAGE("PACKAGES_PAGE_FROM_{}_CLICKED");
+
+    static final String PLACEHOLDER = "{}";
+
+    private final String template;
+    private final String[] parts;
+
+    CallbackOpcode(String template) {
+        this.template = template;
+        this.parts = template.split("\\{}", -1);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the number of number arguments of the button
+     */
+    public int getArity() {
+        return parts.length - 1;
+    }
+
+    /**
+     * @return callback data of a button without arguments
+     */
+    public String encode() {
+        return encode(0, 0);
+    }
+
+    /**
+     * @param first the only argument of the button
+     * @return callback data of a button with one argument
+     */
+    public String encode(long first) {
+        return encode(first, 0);
+    }
+
+    /**
+     * Builds the callback data of this button, substituting the placeholders in order.
+     *
+     * @param first the first argument
+     * @param second the second argument
+     * @return callback data to put into an InlineKeyboardButton
+     */
+    public String encode(long first, long second) {
+        if (parts.length == 1) {
+            return template;
+        }
+
+        StringBuilder callbackData = new StringBuilder(template.length() + 20);
+        callbackData.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            callbackData.append(i == 1 ? first : second).append(parts[i]);
+        }
+        return callbackData.toString();
+    }
+}
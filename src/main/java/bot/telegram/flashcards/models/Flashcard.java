@@ -1,5 +1,6 @@
 package bot.telegram.flashcards.models;
 
+import bot.telegram.flashcards.cache.PackageCatalogInvalidator;
 import bot.telegram.flashcards.models.temporary.FlashcardEducationList;
 import bot.telegram.flashcards.models.temporary.FlashcardRepetitionList;
 import jakarta.persistence.*;
@@ -12,7 +13,11 @@ import java.util.List;
  * Each flashcard belongs to a FlashcardPackage and can appear in learning sessions.
  */
 @Entity
-@Data
+@EntityListeners(PackageCatalogInvalidator.class)
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Flashcard {
@@ -22,13 +27,15 @@ public class Flashcard {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column
+    @EqualsAndHashCode.Include
+    @ToString.Include
     private long id;
 
     /**
      * The package this flashcard belongs to.
      * Many flashcards can belong to one package.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "packageId", referencedColumnName = "id")
     private FlashcardPackage flashcardPackage;
 
@@ -40,11 +47,11 @@ public class Flashcard {
     private List<FlashcardEducationList> flashcardEducationList;
 
     /**
-     * Repetition list entry for this flashcard.
-     * Non-null when the card is marked for repetition in a session.
+     * Repetition list entries for this flashcard.
+     * Tracks which users marked this card for repetition in their sessions.
      */
-    @OneToOne(mappedBy = "flashcard")
-    private FlashcardRepetitionList flashcardRepetitionList;
+    @OneToMany(mappedBy = "flashcard")
+    private List<FlashcardRepetitionList> flashcardRepetitionList;
 
     /**
      * The question displayed on the front of the flashcard.
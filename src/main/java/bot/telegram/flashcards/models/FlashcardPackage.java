@@ -1,5 +1,6 @@
 package bot.telegram.flashcards.models;
 
+import bot.telegram.flashcards.cache.PackageCatalogInvalidator;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -10,7 +11,11 @@ import java.util.List;
  * Packages are owned by users and contain multiple flashcards on a specific topic.
  */
 @Entity
-@Data
+@EntityListeners(PackageCatalogInvalidator.class)
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
 public class FlashcardPackage {
 
     /**
@@ -19,6 +24,8 @@ public class FlashcardPackage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column
+    @EqualsAndHashCode.Include
+    @ToString.Include
     private long id;
 
     /**
@@ -26,6 +33,7 @@ public class FlashcardPackage {
      * Displayed to users when browsing packages.
      */
     @Column
+    @ToString.Include
     private String title;
 
     /**
@@ -36,16 +44,17 @@ public class FlashcardPackage {
     private String description;
 
     /**
-     * List of all flashcards belonging to this package.
-     * Eagerly fetched to ensure cards are available when the package is loaded.
+     * List of all flashcards belonging to this package, ordered by ID.
+     * Lazily fetched; queries that need the cards fetch-join them explicitly.
      */
-    @OneToMany(mappedBy = "flashcardPackage", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "flashcardPackage")
+    @OrderBy("id")
     private List<Flashcard> flashcardList;
 
     /**
      * The user who owns/created this package.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "userId")
     private User user;
 }
@@ -0,0 +1,43 @@
+package bot.telegram.flashcards.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing the last checkpoint of processed Telegram updates of a bot.
+ * Every update below {@code nextUpdateId} was fully processed when the row was saved.
+ * Mapped to the "update_offset" table in the database.
+ */
+@Entity
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+@AllArgsConstructor
+@RequiredArgsConstructor
+@Table(name = "update_offset")
+public class UpdateOffset {
+    /**
+     * The username of the bot, so bots sharing a database keep their own offsets.
+     */
+    @Id
+    @Column
+    @EqualsAndHashCode.Include
+    private String botName;
+
+    /**
+     * The lowest update ID that was not fully processed.
+     */
+    @Column
+    private int nextUpdateId;
+
+    @Column
+    private LocalDateTime savedAt;
+}
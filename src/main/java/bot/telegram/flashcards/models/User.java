@@ -4,6 +4,7 @@ import bot.telegram.flashcards.models.temporary.FlashcardEducationList;
 import bot.telegram.flashcards.models.temporary.FlashcardRepetitionList;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,34 +16,40 @@ import java.util.List;
  */
 @Entity
 @Table(name = "account")
-@Data
+@DynamicUpdate
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
 public class User {
     /**
      * The user's unique identifier, corresponding to their Telegram chat ID.
      */
     @Id
     @Column
+    @EqualsAndHashCode.Include
+    @ToString.Include
     private long id;
 
     /**
      * List of flashcard packages owned/created by this user.
-     * Eagerly fetched to ensure packages are always available.
+     * Lazily fetched; use FlashcardService to query the packages of a user.
      */
-    @OneToMany(mappedBy = "user", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "user")
     private List<FlashcardPackage> flashcardPackageList;
 
     /**
      * List of flashcards in the user's current learning queue.
      * This is a temporary list that gets cleared after the session ends.
      */
-    @OneToMany(mappedBy = "flashcardEducationListPK.user")
+    @OneToMany(mappedBy = "user")
     private List<FlashcardEducationList> flashcardEducationList;
 
     /**
      * List of flashcards marked for repetition in the current session.
      * Contains cards the user rated as "easy" and will review at the end.
      */
-    @OneToMany(mappedBy = "flashcardRepetitionListPK.user")
+    @OneToMany(mappedBy = "user")
     private List<FlashcardRepetitionList> flashcardRepetitionList;
 
     /**
@@ -50,6 +57,7 @@ public class User {
      * Null when the user is not in an active learning session.
      */
     @Column
+    @ToString.Include
     private Long currentFlashcard;
 
     /**
@@ -64,6 +72,13 @@ public class User {
     @Column
     private LocalDateTime endStudyTime;
 
+    /**
+     * Timestamp of the last step of the current learning session.
+     * Sessions idle for longer than {@code bot.session.idle-ttl} are cleared by the session reaper.
+     */
+    @Column
+    private LocalDateTime lastActivity;
+
     /**
      * Count of cards rated as "hard" (25-50% difficulty) in the current session.
      */
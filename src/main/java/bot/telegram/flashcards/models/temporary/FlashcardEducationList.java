@@ -4,32 +4,43 @@ import bot.telegram.flashcards.models.Flashcard;
 import jakarta.persistence.*;
 import bot.telegram.flashcards.models.User;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
-import java.io.Serializable;
-
+/**
+ * Card of a user's learning queue.
+ * Rows are ordered by a sparse ordering key, so a duplicate is placed between two cards
+ * with a single insert and no row is ever renumbered.
+ */
 @Entity
-@Data
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
 @AllArgsConstructor
 @RequiredArgsConstructor
+@Table(indexes = @Index(name = "idx_education_user_order", columnList = "userId, orderKey", unique = true))
 public class FlashcardEducationList {
-    @EmbeddedId
-    private FlashcardEducationListPK flashcardEducationListPK;
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @EqualsAndHashCode.Include
+    @ToString.Include
+    private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
-    @JoinColumn(name = "flashcardId")
-    private Flashcard flashcard;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "userId")
+    private User user;
 
-    @Embeddable
-    @Data
-    @AllArgsConstructor
-    @RequiredArgsConstructor
-    public static class FlashcardEducationListPK implements Serializable {
-        private long id;
+    /**
+     * Position of the card in the queue, see {@code StudyQueue} for the key layout.
+     */
+    @Column
+    private long orderKey;
 
-        @ManyToOne
-        @JoinColumn(name = "userId")
-        private User user;
-    }
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "flashcardId")
+    private Flashcard flashcard;
 }
@@ -4,32 +4,38 @@ import bot.telegram.flashcards.models.Flashcard;
 import bot.telegram.flashcards.models.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
-import java.io.Serializable;
-
+/**
+ * Card of a user's repetition list, ordered by a sparse ordering key like {@link FlashcardEducationList}.
+ */
 @Entity
-@Data
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
 @AllArgsConstructor
 @RequiredArgsConstructor
+@Table(indexes = @Index(name = "idx_repetition_user_order", columnList = "userId, orderKey", unique = true))
 public class FlashcardRepetitionList {
-    @EmbeddedId
-    private FlashcardRepetitionList.FlashcardRepetitionListPK flashcardRepetitionListPK;
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @EqualsAndHashCode.Include
+    @ToString.Include
+    private Long id;
 
-    @OneToOne(fetch = FetchType.EAGER)
-    @JoinColumn(name = "flashcardId")
-    private Flashcard flashcard;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "userId")
+    private User user;
 
-    @Embeddable
-    @Data
-    @AllArgsConstructor
-    @RequiredArgsConstructor
-    public static class FlashcardRepetitionListPK implements Serializable {
-        private long id;
+    @Column
+    private long orderKey;
 
-        @ManyToOne
-        @JoinColumn(name = "userId")
-        private User user;
-    }
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "flashcardId")
+    private Flashcard flashcard;
 }
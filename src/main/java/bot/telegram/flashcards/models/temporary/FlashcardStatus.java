@@ -5,35 +5,54 @@ import bot.telegram.flashcards.models.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.io.Serializable;
 
 @Entity
-@Data
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
 @AllArgsConstructor
 @RequiredArgsConstructor
 public class FlashcardStatus {
     @EmbeddedId
+    @EqualsAndHashCode.Include
+    @ToString.Include
     private FlashcardStatusPK flashcardStatusPK;
 
+    @MapsId("userId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @MapsId("flashcardId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "flashcard_id")
+    private Flashcard flashcard;
+
     @Column
+    @ToString.Include
     private Integer numberOfDuplicatedCards;
 
     @Column
     private String difficultyStatus;// TODO: temporary unused, will be used in statistics after learning class
 
+    /**
+     * Key of the status: plain IDs, so hashing and comparing it never touches the user or the card.
+     */
     @Embeddable
     @Data
     @AllArgsConstructor
     @RequiredArgsConstructor
     public static class FlashcardStatusPK implements Serializable {
-        @ManyToOne
-        @JoinColumn(name = "userId")
-        private User user;
+        private long userId;
 
-        @OneToOne
-        @JoinColumn(name = "flashcardId")
-        private Flashcard flashcard;
+        private long flashcardId;
     }
 }
@@ -0,0 +1,81 @@
+package bot.telegram.flashcards.models.temporary;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Persisted cursor of a user's learning session.
+ * The order of the package is not stored card by card: it is the permutation selected by {@code seed}
+ * over the first {@code cardCount} cards of the package, see {@code StudyQueue}.
+ * Only duplicated hard cards are stored as rows of {@link FlashcardEducationList}.
+ *
+ * The row is the header of the session: its counters are updated in the same transaction as the rows
+ * they count, so reading the size of either list never needs a COUNT query, and an empty list is not queried.
+ */
+@Entity
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
+@AllArgsConstructor
+@RequiredArgsConstructor
+@Table(name = "study_session")
+public class StudySessionState {
+    /**
+     * The Telegram chat ID of the user; a user has at most one session.
+     */
+    @Id
+    @Column
+    @EqualsAndHashCode.Include
+    @ToString.Include
+    private long userId;
+
+    @Column
+    @ToString.Include
+    private long packageId;
+
+    /**
+     * Seed of the permutation that defines the order of the cards.
+     */
+    @Column
+    private long seed;
+
+    /**
+     * Number of cards of the package when the session was started.
+     */
+    @Column
+    private int cardCount;
+
+    /**
+     * Ordering key of the current learning card.
+     */
+    @Column
+    @ToString.Include
+    private long cursorKey;
+
+    @Column
+    private boolean repetitionPhase;
+
+    /**
+     * Number of {@link FlashcardEducationList} rows of the session.
+     */
+    @Column
+    private int duplicateCount;
+
+    /**
+     * Number of {@link FlashcardRepetitionList} rows of the session; the next row gets the following ordering key.
+     */
+    @Column
+    private int repetitionSize;
+
+    /**
+     * Bitset of the ordinals of the package cards in the repetition list, as {@code BitSet.toByteArray()}.
+     */
+    @Column
+    private byte[] repetitionMembers;
+}
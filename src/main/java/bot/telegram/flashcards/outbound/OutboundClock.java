@@ -0,0 +1,35 @@
+package bot.telegram.flashcards.outbound;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Source of time of the outbound queue: rate limits, retry delays and the waits for them.
+ */
+interface OutboundClock {
+    /**
+     * The clock of the JVM.
+     */
+    OutboundClock SYSTEM = new OutboundClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void parkNanos(long nanos) {
+            LockSupport.parkNanos(nanos);
+        }
+    };
+
+    /**
+     * @return the current time, comparable to {@link System#nanoTime()}
+     */
+    long nanoTime();
+
+    /**
+     * Blocks the calling thread for up to the given time.
+     *
+     * @param nanos the time to wait
+     */
+    void parkNanos(long nanos);
+}
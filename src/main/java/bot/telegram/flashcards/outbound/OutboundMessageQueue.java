@@ -0,0 +1,523 @@
+package bot.telegram.flashcards.outbound;
+
+import bot.telegram.flashcards.metrics.BotMetrics;
+import bot.telegram.flashcards.metrics.OperationTimer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous outbound pipeline for Telegram API methods.
+ * Handlers enqueue messages and return immediately; a scheduler thread releases them within
+ * a global and a per-chat token bucket, and the requests themselves run on virtual threads.
+ *
+ * Messages of one chat are sent one at a time in enqueue order. A 429 response pauses the global bucket,
+ * and with it the scheduler, for the {@code retry_after} given by Telegram, and the message is retried
+ * after it; other transient failures are retried with exponential backoff.
+ * A queued edit of a message is dropped when a newer edit of the same message is enqueued, and an edit
+ * that would not change the message is not enqueued at all (see {@link RenderedMessageCache}).
+ * Every request is timed by the timer of its API method, each attempt on its own.
+ *
+ * Callback query acknowledgements take a lane of their own: a separate thread takes them off the queue
+ * in groups and sends each one at once as a request of its own, without the rate limits and without
+ * waiting behind the messages of their chat, since a late acknowledgement is as useless as none.
+ * They do wait out a pause after a 429, so a flood wait imposed by Telegram is not extended by clicks.
+ */
+@Slf4j
+@Component
+public class OutboundMessageQueue {
+    /**
+     * Chat key for methods that are not bound to a chat; they are only limited by the global bucket.
+     */
+    private static final long NO_CHAT = 0L;
+    /**
+     * Most acknowledgements taken from the queue at once; each is still sent as a request of its own.
+     */
+    private static final int ACKNOWLEDGEMENT_DRAIN_SIZE = 100;
+
+    private final TokenBucket globalBucket;
+    private final double chatBurst;
+    private final double chatRate;
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final BotMetrics botMetrics;
+    private final RenderedMessageCache renderedMessages;
+    private final OutboundClock clock;
+    private final ExecutorService executor;
+
+    private final Map<Long, ChatOutbox> outboxes = new ConcurrentHashMap<>();
+    private final DelayQueue<ChatOutbox> readyChats = new DelayQueue<>();
+    private final AtomicInteger pendingMessages = new AtomicInteger();
+    private final BlockingQueue<AnswerCallbackQuery> pendingAcknowledgements = new LinkedBlockingQueue<>();
+
+    private volatile AbsSender sender;
+    private volatile Thread scheduler;
+    private volatile Thread acknowledger;
+
+    @Autowired
+    public OutboundMessageQueue(@Value("${bot.outbound.global-rate:30}") double globalRate,
+                                @Value("${bot.outbound.chat-burst:3}") double chatBurst,
+                                @Value("${bot.outbound.chat-rate:1}") double chatRate,
+                                @Value("${bot.outbound.max-attempts:5}") int maxAttempts,
+                                @Value("${bot.outbound.base-backoff:500ms}") Duration baseBackoff,
+                                BotMetrics botMetrics,
+                                RenderedMessageCache renderedMessages) {
+        this(globalRate, chatBurst, chatRate, maxAttempts, baseBackoff, botMetrics, renderedMessages,
+                OutboundClock.SYSTEM, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * @param clock the source of time of the rate limits and retry delays
+     * @param executor runs the requests
+     */
+    OutboundMessageQueue(double globalRate, double chatBurst, double chatRate, int maxAttempts, Duration baseBackoff,
+                         BotMetrics botMetrics, RenderedMessageCache renderedMessages,
+                         OutboundClock clock, ExecutorService executor) {
+        this.clock = clock;
+        this.executor = executor;
+        this.globalBucket = new TokenBucket(globalRate, globalRate, clock.nanoTime());
+        this.chatBurst = chatBurst;
+        this.chatRate = chatRate;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.botMetrics = botMetrics;
+        this.renderedMessages = renderedMessages;
+    }
+
+    /**
+     * Starts sending queued messages through the given sender.
+     * Messages enqueued before the start are kept and sent afterwards.
+     *
+     * @param sender the bot used to execute API methods
+     */
+    public synchronized void start(AbsSender sender) {
+        this.sender = sender;
+        if (scheduler == null) {
+            scheduler = Thread.ofVirtual().name("outbound-scheduler").start(this::runScheduler);
+            acknowledger = Thread.ofVirtual().name("outbound-acknowledger").start(this::runAcknowledger);
+        }
+    }
+
+    /**
+     * Enqueues the acknowledgement of a callback query, which stops the spinner on the pressed button.
+     *
+     * @param callbackQueryId the ID of the callback query
+     */
+    public void acknowledge(String callbackQueryId) {
+        acknowledge(callbackQueryId, null);
+    }
+
+    /**
+     * Enqueues the acknowledgement of a callback query with a notification shown at the top of the chat.
+     *
+     * @param callbackQueryId the ID of the callback query
+     * @param text the text of the notification, or null for none
+     */
+    public void acknowledge(String callbackQueryId, String text) {
+        pendingAcknowledgements.add(AnswerCallbackQuery.builder()
+                .callbackQueryId(callbackQueryId)
+                .text(text)
+                .build());
+    }
+
+    /**
+     * Enqueues a message, resolving the chat from {@link SendMessage} and {@link EditMessageText}.
+     *
+     * @param method the API method to execute
+     * @return future completed with the API result, or with null if the message was dropped as outdated or unchanged
+     */
+    public <T extends Serializable> CompletableFuture<T> enqueue(BotApiMethod<T> method) {
+        return enqueue(chatIdOf(method), method);
+    }
+
+    /**
+     * Enqueues a message for the given chat.
+     *
+     * @param chatId the chat whose rate limit applies
+     * @param method the API method to execute
+     * @return future completed with the API result, or with null if the message was dropped as outdated or unchanged
+     */
+    public <T extends Serializable> CompletableFuture<T> enqueue(long chatId, BotApiMethod<T> method) {
+        if (method == null) {
+            log.warn("Ignored empty outbound message for chat {}", chatId);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (method instanceof EditMessageText edit && !renderedMessages.render(chatId, edit)) {
+            log.debug("Skipped unchanged edit of message {} in chat {}", edit.getMessageId(), chatId);
+            botMetrics.skippedEdit();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        OutboundMessage<T> message = new OutboundMessage<>(method);
+        pendingMessages.incrementAndGet();
+        outboxes.compute(chatId, (id, existing) -> {
+            ChatOutbox outbox = existing != null ? existing : new ChatOutbox(id, new TokenBucket(chatBurst, chatRate, clock.nanoTime()));
+            synchronized (outbox) {
+                outbox.add(message);
+                if (outbox.state == OutboxState.IDLE) {
+                    outbox.schedule(clock.nanoTime());
+                }
+            }
+            return outbox;
+        });
+        return message.future;
+    }
+
+    /**
+     * @return the number of messages that are queued or being sent
+     */
+    public int getPendingMessages() {
+        return pendingMessages.get();
+    }
+
+    private void runScheduler() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                release(readyChats.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Outbound scheduler error", e);
+            }
+        }
+    }
+
+    /**
+     * Releases every chat whose turn has come, without waiting for the turn of the others.
+     * The scheduler thread releases chats from the same queue, blocking until their turn.
+     *
+     * @return the number of chats released
+     */
+    int releaseReady() {
+        int released = 0;
+        ChatOutbox outbox;
+        while ((outbox = readyChats.poll()) != null) {
+            release(outbox);
+            released++;
+        }
+        return released;
+    }
+
+    /**
+     * Sends the next message of the chat once both buckets give a token,
+     * or schedules the chat again if its own bucket is empty.
+     */
+    private void release(ChatOutbox outbox) {
+        long chatWait = outbox.bucket.tryAcquire(clock.nanoTime());
+        if (chatWait > 0) {
+            synchronized (outbox) {
+                outbox.schedule(clock.nanoTime() + chatWait);
+            }
+            return;
+        }
+
+        long globalWait;
+        while ((globalWait = globalBucket.tryAcquire(clock.nanoTime())) > 0) {
+            clock.parkNanos(globalWait);
+        }
+
+        OutboundMessage<?> message;
+        synchronized (outbox) {
+            message = outbox.queue.pollFirst();
+            outbox.state = message == null ? OutboxState.IDLE : OutboxState.IN_FLIGHT;
+        }
+
+        if (message == null) {
+            removeIfIdle(outbox);
+        } else {
+            executor.execute(() -> send(outbox, message));
+        }
+    }
+
+    private void runAcknowledger() {
+        List<AnswerCallbackQuery> drained = new ArrayList<>(ACKNOWLEDGEMENT_DRAIN_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                drained.add(pendingAcknowledgements.take());
+                pendingAcknowledgements.drainTo(drained, ACKNOWLEDGEMENT_DRAIN_SIZE - 1);
+                for (AnswerCallbackQuery acknowledgement : drained) {
+                    awaitGlobalPause();
+                    executor.execute(() -> sendAcknowledgement(acknowledgement));
+                }
+                drained.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Outbound acknowledger error", e);
+                drained.clear();
+            }
+        }
+    }
+
+    /**
+     * Blocks while sending is paused after a 429.
+     */
+    private void awaitGlobalPause() throws InterruptedException {
+        long pause;
+        while ((pause = globalBucket.getPause(clock.nanoTime())) > 0) {
+            clock.parkNanos(pause);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private void sendAcknowledgement(AnswerCallbackQuery acknowledgement) {
+        OperationTimer timer = botMetrics.apiTimer(AnswerCallbackQuery.PATH);
+        long startedAt = timer.start();
+        try {
+            sender.execute(acknowledgement);
+            timer.success(startedAt);
+        } catch (Exception e) {
+            // the query expires after a while anyway, so there is nothing to retry
+            timer.failure(startedAt);
+            log.debug("Cannot acknowledge callback query {}: {}", acknowledgement.getCallbackQueryId(), e.getMessage());
+        }
+    }
+
+    private <T extends Serializable> void send(ChatOutbox outbox, OutboundMessage<T> message) {
+        long delay = 0L;
+        OperationTimer timer = botMetrics.apiTimer(message.method.getMethod());
+        long startedAt = timer.start();
+        try {
+            message.attempts++;
+            T result = sender.execute(message.method);
+            timer.success(startedAt);
+            complete(message, result);
+        } catch (TelegramApiRequestException e) {
+            timer.failure(startedAt);
+            delay = handleRequestError(outbox, message, e);
+        } catch (TelegramApiException e) {
+            timer.failure(startedAt);
+            delay = retryWithBackoff(outbox, message, e);
+        } catch (Exception e) {
+            timer.failure(startedAt);
+            log.error("Cannot send message to chat {}", outbox.chatId, e);
+            fail(outbox, message, e);
+        }
+        reschedule(outbox, delay);
+    }
+
+    private <T extends Serializable> long handleRequestError(ChatOutbox outbox, OutboundMessage<T> message,
+                                                             TelegramApiRequestException e) {
+        Integer errorCode = e.getErrorCode();
+        if (errorCode != null && errorCode == 429) {
+            ResponseParameters parameters = e.getParameters();
+            long retryAfterSeconds = parameters != null && parameters.getRetryAfter() != null ? parameters.getRetryAfter() : 1L;
+            log.warn("Rate limited by Telegram for chat {}, pausing all chats for {}s", outbox.chatId, retryAfterSeconds);
+            long retryAfter = TimeUnit.SECONDS.toNanos(retryAfterSeconds);
+            globalBucket.pauseUntil(clock.nanoTime() + retryAfter);
+            requeue(outbox, message);
+            return retryAfter;
+        }
+        if (errorCode == null || errorCode >= 500) {
+            return retryWithBackoff(outbox, message, e);
+        }
+
+        if (e.getApiResponse() != null && e.getApiResponse().contains("message is not modified")) {
+            log.debug("Skipped unchanged message in chat {}", outbox.chatId);
+            complete(message, null);
+        } else {
+            log.warn("Telegram rejected message for chat {}: {}", outbox.chatId, e.getApiResponse());
+            fail(outbox, message, e);
+        }
+        return 0L;
+    }
+
+    private <T extends Serializable> long retryWithBackoff(ChatOutbox outbox, OutboundMessage<T> message, TelegramApiException e) {
+        if (message.attempts >= maxAttempts) {
+            log.error("Giving up sending message to chat {} after {} attempts", outbox.chatId, message.attempts, e);
+            fail(outbox, message, e);
+            return 0L;
+        }
+        log.warn("Cannot send message to chat {} (attempt {}), retrying: {}", outbox.chatId, message.attempts, e.getMessage());
+        requeue(outbox, message);
+        return baseBackoffNanos << (message.attempts - 1);
+    }
+
+    private void requeue(ChatOutbox outbox, OutboundMessage<?> message) {
+        synchronized (outbox) {
+            if (outbox.hasNewerEdit(message)) {
+                complete(message, null);
+            } else {
+                outbox.queue.addFirst(message);
+            }
+        }
+    }
+
+    private void reschedule(ChatOutbox outbox, long delayNanos) {
+        boolean idle;
+        synchronized (outbox) {
+            idle = outbox.queue.isEmpty();
+            if (idle) {
+                outbox.state = OutboxState.IDLE;
+            } else {
+                outbox.schedule(clock.nanoTime() + delayNanos);
+            }
+        }
+        if (idle) {
+            removeIfIdle(outbox);
+        }
+    }
+
+    private void removeIfIdle(ChatOutbox outbox) {
+        outboxes.computeIfPresent(outbox.chatId, (id, existing) -> {
+            synchronized (existing) {
+                return existing.state == OutboxState.IDLE && existing.queue.isEmpty() ? null : existing;
+            }
+        });
+    }
+
+    private <T extends Serializable> void complete(OutboundMessage<T> message, T result) {
+        pendingMessages.decrementAndGet();
+        message.future.complete(result);
+    }
+
+    private void fail(ChatOutbox outbox, OutboundMessage<?> message, Exception e) {
+        if (message.editedMessageId() != null) {
+            // the message does not show the failed edit, so the same edit must not be skipped
+            renderedMessages.forget(outbox.chatId);
+        }
+        pendingMessages.decrementAndGet();
+        message.future.completeExceptionally(e);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread current = scheduler;
+        if (current != null) {
+            current.interrupt();
+            acknowledger.interrupt();
+        }
+        executor.close();
+    }
+
+    private static long chatIdOf(BotApiMethod<?> method) {
+        String chatId = null;
+        if (method instanceof SendMessage sendMessage) {
+            chatId = sendMessage.getChatId();
+        } else if (method instanceof EditMessageText editMessageText) {
+            chatId = editMessageText.getChatId();
+        }
+        return chatId == null ? NO_CHAT : Long.parseLong(chatId);
+    }
+
+    private enum OutboxState {
+        /** Nothing scheduled and nothing in flight. */
+        IDLE,
+        /** Waiting in the delay queue for its turn. */
+        SCHEDULED,
+        /** A message of the chat is being sent. */
+        IN_FLIGHT
+    }
+
+    private static final class OutboundMessage<T extends Serializable> {
+        private final BotApiMethod<T> method;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private int attempts;
+
+        private OutboundMessage(BotApiMethod<T> method) {
+            this.method = method;
+        }
+
+        private Integer editedMessageId() {
+            return method instanceof EditMessageText editMessageText ? editMessageText.getMessageId() : null;
+        }
+    }
+
+    private final class ChatOutbox implements Delayed {
+        private final long chatId;
+        private final TokenBucket bucket;
+        private final Deque<OutboundMessage<?>> queue = new ArrayDeque<>();
+        private OutboxState state = OutboxState.IDLE;
+        private volatile long readyAt;
+
+        private ChatOutbox(long chatId, TokenBucket bucket) {
+            this.chatId = chatId;
+            this.bucket = bucket;
+        }
+
+        /**
+         * Appends a message, dropping a queued older edit of the same message.
+         * Must be called while holding the outbox lock.
+         */
+        private void add(OutboundMessage<?> message) {
+            Integer messageId = message.editedMessageId();
+            if (messageId != null) {
+                Iterator<OutboundMessage<?>> iterator = queue.iterator();
+                while (iterator.hasNext()) {
+                    OutboundMessage<?> queued = iterator.next();
+                    if (messageId.equals(queued.editedMessageId())) {
+                        iterator.remove();
+                        complete(queued, null);
+                    }
+                }
+            }
+            queue.addLast(message);
+        }
+
+        /**
+         * Must be called while holding the outbox lock.
+         */
+        private boolean hasNewerEdit(OutboundMessage<?> message) {
+            Integer messageId = message.editedMessageId();
+            if (messageId == null) {
+                return false;
+            }
+            for (OutboundMessage<?> queued : queue) {
+                if (messageId.equals(queued.editedMessageId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Must be called while holding the outbox lock.
+         */
+        private void schedule(long at) {
+            state = OutboxState.SCHEDULED;
+            readyAt = at;
+            readyChats.add(this);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - clock.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((ChatOutbox) other).readyAt);
+        }
+    }
+}
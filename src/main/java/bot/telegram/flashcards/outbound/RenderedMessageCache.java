@@ -0,0 +1,116 @@
+package bot.telegram.flashcards.outbound;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Fingerprint of the message each chat last had edited, so an edit that would not change it is skipped
+ * instead of being rejected by Telegram with "message is not modified".
+ *
+ * A fingerprint can also be tagged with the button whose click rendered it. A click on a button that renders
+ * the same message for as long as the session does not change, like "Show answer", is then skipped before its
+ * handler reads anything, when the message still shows what the same click rendered.
+ * Any command of the chat forgets its message, since commands change the session the message depends on.
+ *
+ * One entry per chat, bounded by {@code bot.outbound.rendered-cache-size} chats and expired after
+ * {@code bot.outbound.rendered-cache-ttl}, well before idle sessions are reaped.
+ */
+@Component
+public class RenderedMessageCache {
+    private final Cache<Long, RenderedMessage> messages;
+
+    public RenderedMessageCache(@Value("${bot.outbound.rendered-cache-size:100000}") long maxChats,
+                                @Value("${bot.outbound.rendered-cache-ttl:1h}") Duration ttl) {
+        this.messages = Caffeine.newBuilder()
+                .maximumSize(maxChats)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Remembers the edit as the last rendering of its chat, unless it renders exactly what the message shows.
+     *
+     * @param chatId the chat of the message
+     * @param edit the edit about to be sent
+     * @return false if the message already shows the same text and keyboard, so the edit can be skipped
+     */
+    public boolean render(long chatId, EditMessageText edit) {
+        if (edit.getMessageId() == null) {
+            return true;
+        }
+
+        int messageId = edit.getMessageId();
+        long fingerprint = fingerprintOf(edit);
+        RenderedMessage rendered = messages.getIfPresent(chatId);
+        if (rendered != null && rendered.messageId() == messageId && rendered.fingerprint() == fingerprint) {
+            return false;
+        }
+        messages.put(chatId, new RenderedMessage(messageId, fingerprint, null));
+        return true;
+    }
+
+    /**
+     * Tags the last rendering of the clicked message with the button, after its handler has run.
+     *
+     * @param callbackQuery the handled callback query
+     */
+    public void renderedBy(CallbackQuery callbackQuery) {
+        if (!(callbackQuery.getMessage() instanceof Message message)) {
+            return;
+        }
+        messages.asMap().computeIfPresent(message.getChatId(), (chatId, rendered) ->
+                rendered.messageId() == message.getMessageId()
+                        ? new RenderedMessage(rendered.messageId(), rendered.fingerprint(), callbackQuery.getData())
+                        : rendered);
+    }
+
+    /**
+     * @param callbackQuery an incoming callback query
+     * @return true if the clicked message still shows what a click on the same button rendered
+     */
+    public boolean isRenderedBy(CallbackQuery callbackQuery) {
+        if (!(callbackQuery.getMessage() instanceof Message message)) {
+            return false;
+        }
+        RenderedMessage rendered = messages.getIfPresent(message.getChatId());
+        return rendered != null
+                && rendered.messageId() == message.getMessageId()
+                && Objects.equals(rendered.callbackData(), callbackQuery.getData());
+    }
+
+    /**
+     * Forgets the message of the chat, e.g. after a failed edit or a command that changes the session.
+     *
+     * @param chatId the chat
+     */
+    public void forget(long chatId) {
+        messages.invalidate(chatId);
+    }
+
+    /**
+     * Combines independent hashes of the text and of the formatting and keyboard, so two different
+     * renderings only collide if both hashes do.
+     */
+    private static long fingerprintOf(EditMessageText edit) {
+        int text = Objects.hashCode(edit.getText());
+        int markup = Objects.hash(edit.getParseMode(), edit.getEntities(), edit.getDisableWebPagePreview(),
+                edit.getReplyMarkup());
+        return (long) text << 32 | markup & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @param messageId the ID of the edited message
+     * @param fingerprint the hash of its text and keyboard
+     * @param callbackData the button whose click rendered it, or null
+     */
+    private record RenderedMessage(int messageId, long fingerprint, String callbackData) {
+    }
+}
@@ -0,0 +1,78 @@
+package bot.telegram.flashcards.outbound;
+
+/**
+ * Classic token bucket used to keep outgoing requests within Telegram rate limits.
+ * Starts full, so short bursts up to the capacity are allowed.
+ */
+public final class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    /**
+     * @param capacity the maximum number of tokens (burst size)
+     * @param tokensPerSecond the sustained refill rate
+     */
+    public TokenBucket(double capacity, double tokensPerSecond) {
+        this(capacity, tokensPerSecond, System.nanoTime());
+    }
+
+    /**
+     * @param capacity the maximum number of tokens (burst size)
+     * @param tokensPerSecond the sustained refill rate
+     * @param now the current time on the clock later passed to {@link #tryAcquire(long)}
+     */
+    public TokenBucket(double capacity, double tokensPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = now;
+        this.pausedUntil = now;
+    }
+
+    /**
+     * Gives no tokens until the given time, then refills from empty.
+     * A pause ending earlier than one already in effect does not shorten it.
+     *
+     * @param until the {@link System#nanoTime()} at which the pause ends
+     */
+    public synchronized void pauseUntil(long until) {
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = 0d;
+        lastRefill = pausedUntil;
+    }
+
+    /**
+     * @param now the current {@link System#nanoTime()}
+     * @return the number of nanoseconds until a pause set by {@link #pauseUntil(long)} ends, or 0 if none is in effect
+     */
+    public synchronized long getPause(long now) {
+        return Math.max(0L, pausedUntil - now);
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise the number of nanoseconds until one becomes available
+     */
+    public synchronized long tryAcquire(long now) {
+        if (pausedUntil - now > 0) {
+            return pausedUntil - now;
+        }
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+
+        if (tokens >= 1d) {
+            tokens -= 1d;
+            return 0L;
+        }
+        return (long) Math.ceil((1d - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,12 @@
+package bot.telegram.flashcards.repository;
+
+/**
+ * Read model of a card as it is rendered on the study screen.
+ * Selected with a constructor expression, so it is never managed by the persistence context.
+ *
+ * @param id the ID of the flashcard
+ * @param question the question side
+ * @param answer the answer side
+ */
+public record FlashcardContent(long id, String question, String answer) {
+}
@@ -1,15 +1,30 @@
 package bot.telegram.flashcards.repository;
 
-import bot.telegram.flashcards.models.User;
 import bot.telegram.flashcards.models.temporary.FlashcardEducationList;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface FlashcardEducationListRepository
-        extends CrudRepository<FlashcardEducationList, FlashcardEducationList.FlashcardEducationListPK> {
-    long countFlashcardEducationListByFlashcardEducationListPK_User(User user);
+public interface FlashcardEducationListRepository extends CrudRepository<FlashcardEducationList, Long> {
+    @Query("select e.orderKey as orderKey, e.flashcard.id as flashcardId from FlashcardEducationList e " +
+            "where e.user.id = :userId order by e.orderKey")
+    List<OrderedFlashcard> findOrderedFlashcards(long userId);
+    @Modifying
+    @Transactional
+    @Query("delete from FlashcardEducationList e where e.user.id = :userId and e.orderKey < :orderKey")
+    void deleteAllByUserIdBefore(long userId, long orderKey);
+    @Modifying
+    @Transactional
+    @Query("delete from FlashcardEducationList e where e.user.id = :userId")
+    void deleteAllByUserId(long userId);
+    @Modifying
     @Transactional
-    void deleteAllByFlashcardEducationListPK_User(User user);
+    @Query("delete from FlashcardEducationList e where e.user.id in :userIds")
+    void deleteAllByUserIdIn(Collection<Long> userIds);
 }
@@ -1,10 +1,19 @@
 package bot.telegram.flashcards.repository;
 
-import bot.telegram.flashcards.models.Flashcard;
 import bot.telegram.flashcards.models.FlashcardPackage;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface FlashcardPackageRepository extends CrudRepository<FlashcardPackage, Long> {
+    @Query("select p from FlashcardPackage p left join fetch p.flashcardList where p.id = :id")
+    Optional<FlashcardPackage> findWithFlashcardsById(long id);
+    List<FlashcardPackage> findAllByUserId(long userId);
+    @Query("select new bot.telegram.flashcards.repository.PackageSummary(p.id, p.title, count(f)) "
+            + "from FlashcardPackage p left join p.flashcardList f group by p.id, p.title order by p.id")
+    List<PackageSummary> findAllSummaries();
 }
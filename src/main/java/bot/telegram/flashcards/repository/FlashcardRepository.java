@@ -1,13 +1,22 @@
 package bot.telegram.flashcards.repository;
 
 import bot.telegram.flashcards.models.Flashcard;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface FlashcardRepository extends CrudRepository<Flashcard, Long> {
+public interface FlashcardRepository extends JpaRepository<Flashcard, Long> {
     Flashcard findFlashcardById(Long id);
+    @Query("select f.flashcardPackage.id from Flashcard f where f.id = :id")
+    Long findPackageIdById(long id);
+    @Query("select f.id from Flashcard f where f.flashcardPackage.id = :packageId order by f.id")
+    List<Long> findIdsByPackageId(long packageId);
+    @Query("select new bot.telegram.flashcards.repository.FlashcardContent(f.id, f.question, f.answer) "
+            + "from Flashcard f where f.id = :id")
+    Optional<FlashcardContent> findContentById(long id);
 
 }
@@ -1,14 +1,23 @@
 package bot.telegram.flashcards.repository;
 
-import bot.telegram.flashcards.models.User;
 import bot.telegram.flashcards.models.temporary.FlashcardStatus;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+
 @Repository
 public interface FlashcardStatusRepository
         extends CrudRepository<FlashcardStatus, FlashcardStatus.FlashcardStatusPK> {
+    @Modifying
+    @Transactional
+    @Query("delete from FlashcardStatus s where s.flashcardStatusPK.userId = :userId")
+    void deleteAllByUserId(long userId);
+    @Modifying
     @Transactional
-    void deleteAllByFlashcardStatusPK_User(User user);
-}
\ No newline at end of file
+    @Query("delete from FlashcardStatus s where s.flashcardStatusPK.userId in :userIds")
+    void deleteAllByUserIdIn(Collection<Long> userIds);
+}
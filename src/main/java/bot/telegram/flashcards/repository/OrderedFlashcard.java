@@ -0,0 +1,10 @@
+package bot.telegram.flashcards.repository;
+
+/**
+ * Projection of a learning queue or repetition list row: the card and its ordering key.
+ */
+public interface OrderedFlashcard {
+    long getOrderKey();
+
+    long getFlashcardId();
+}
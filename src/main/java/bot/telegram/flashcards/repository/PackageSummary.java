@@ -0,0 +1,11 @@
+package bot.telegram.flashcards.repository;
+
+/**
+ * Read model of a package as it is listed in the catalog.
+ *
+ * @param id the ID of the package
+ * @param title the title shown on the package button
+ * @param cardCount the number of cards in the package
+ */
+public record PackageSummary(long id, String title, long cardCount) {
+}
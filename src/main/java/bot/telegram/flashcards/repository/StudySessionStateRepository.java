@@ -0,0 +1,29 @@
+package bot.telegram.flashcards.repository;
+
+import bot.telegram.flashcards.models.temporary.StudySessionState;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface StudySessionStateRepository extends CrudRepository<StudySessionState, Long> {
+    @Modifying
+    @Transactional
+    @Query("update StudySessionState s set s.cursorKey = :cursorKey, s.repetitionPhase = :repetitionPhase, " +
+            "s.duplicateCount = :duplicateCount, s.repetitionSize = :repetitionSize, " +
+            "s.repetitionMembers = :repetitionMembers where s.userId = :userId")
+    int updateCursor(long userId, long cursorKey, boolean repetitionPhase, int duplicateCount, int repetitionSize,
+                     byte[] repetitionMembers);
+    @Modifying
+    @Transactional
+    @Query("delete from StudySessionState s where s.userId = :userId")
+    void deleteByUserId(long userId);
+    @Modifying
+    @Transactional
+    @Query("delete from StudySessionState s where s.userId in :userIds")
+    void deleteAllByUserIdIn(Collection<Long> userIds);
+}
@@ -0,0 +1,9 @@
+package bot.telegram.flashcards.repository;
+
+import bot.telegram.flashcards.models.UpdateOffset;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UpdateOffsetRepository extends CrudRepository<UpdateOffset, String> {
+}
@@ -1,9 +1,41 @@
 package bot.telegram.flashcards.repository;
 
 import bot.telegram.flashcards.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
+    @Query("select u.id from User u where u.id > :afterId order by u.id")
+    List<Long> findIdsAfter(long afterId, Pageable pageable);
+    @Modifying
+    @Transactional
+    @Query(value = "insert into account (id, hard_card, hardest_card) values (:id, 0, 0) on conflict do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(long id);
+    @Query("select u.id from User u where u.currentFlashcard is not null " +
+            "and coalesce(u.lastActivity, u.startStudyTime) < :cutoff order by u.id")
+    List<Long> findIdleSessionUserIds(LocalDateTime cutoff, Pageable pageable);
+    @Modifying
+    @Transactional
+    @Query("update User u set u.currentFlashcard = null where u.id in :ids")
+    void clearCurrentFlashcard(Collection<Long> ids);
+    /**
+     * Writes the session fields of a user loaded earlier, without reading the row again as a merge would.
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.currentFlashcard = :#{#user.currentFlashcard}, " +
+            "u.startStudyTime = :#{#user.startStudyTime}, u.endStudyTime = :#{#user.endStudyTime}, " +
+            "u.lastActivity = :#{#user.lastActivity}, u.hardCard = :#{#user.hardCard}, " +
+            "u.hardestCard = :#{#user.hardestCard} where u.id = :#{#user.id}")
+    int updateSession(User user);
 }
@@ -1,19 +1,21 @@
 package bot.telegram.flashcards.service;
 
-import bot.telegram.flashcards.models.Flashcard;
+import bot.telegram.flashcards.cache.PackageCardIndex;
+import bot.telegram.flashcards.misc.CallbackOpcode;
 import bot.telegram.flashcards.models.FlashcardPackage;
 import bot.telegram.flashcards.models.User;
-import bot.telegram.flashcards.models.temporary.FlashcardEducationList;
-import bot.telegram.flashcards.models.temporary.FlashcardRepetitionList;
 import bot.telegram.flashcards.models.temporary.FlashcardStatus;
-import bot.telegram.flashcards.repository.FlashcardEducationListRepository;
-import bot.telegram.flashcards.repository.FlashcardRepetitionListRepository;
+import bot.telegram.flashcards.repository.FlashcardContent;
+import bot.telegram.flashcards.repository.FlashcardRepository;
 import bot.telegram.flashcards.repository.FlashcardStatusRepository;
 import bot.telegram.flashcards.service.interfaces.IEducationService;
 import bot.telegram.flashcards.service.interfaces.IUserService;
+import bot.telegram.flashcards.service.session.StudySession;
+import bot.telegram.flashcards.service.session.StudySessionEngine;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.methods.ParseMode;
@@ -24,6 +26,8 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKe
 /**
  * Implementation of IEducationService.
  * Manages the learning session lifecycle and flashcard progression.
+ * The learning queue and the repetition list are held by {@link StudySessionEngine};
+ * {@code User.currentFlashcard} stays the persisted cursor of the session.
  *
  * NOTE: This service currently has multiple responsibilities and should be
  * refactored into smaller, more focused services (SRP violation).
@@ -32,25 +36,26 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKe
 @Service
 @Slf4j
 public class EducationService implements IEducationService {
-  private final FlashcardEducationListRepository
-      flashcardEducationListRepository;
-  private final FlashcardRepetitionListRepository
-      flashcardRepetitionListRepository;
+  private final StudySessionEngine studySessionEngine;
+  private final PackageCardIndex packageCardIndex;
   private final FlashcardStatusRepository flashcardStatusRepository;
+  private final FlashcardRepository flashcardRepository;
 
   private final IUserService userService;
   private final FlashcardService flashcardService;
 
   // Constructor injection following Dependency Inversion Principle
   public EducationService(
-      FlashcardEducationListRepository flashcardEducationListRepository,
-      FlashcardRepetitionListRepository flashcardRepetitionListRepository,
+      StudySessionEngine studySessionEngine,
+      PackageCardIndex packageCardIndex,
       FlashcardStatusRepository flashcardStatusRepository,
+      FlashcardRepository flashcardRepository,
       IUserService userService,
       FlashcardService flashcardService) {
-    this.flashcardEducationListRepository = flashcardEducationListRepository;
-    this.flashcardRepetitionListRepository = flashcardRepetitionListRepository;
+    this.studySessionEngine = studySessionEngine;
+    this.packageCardIndex = packageCardIndex;
     this.flashcardStatusRepository = flashcardStatusRepository;
+    this.flashcardRepository = flashcardRepository;
     this.userService = userService;
     this.flashcardService = flashcardService;
   }
@@ -69,17 +74,34 @@ public class EducationService implements IEducationService {
   }
 
   /**
-   * Retrieves a flashcard from the user's current education list.
+   * Retrieves the content of the flashcard the user is currently learning.
    *
-   * @param id the position/index in the education list
-   * @param user the user whose education list to query
-   * @return the FlashcardEducationList entry
-   * @throws NoSuchElementException if no flashcard exists at that position
+   * @param session the learning session of the user
+   * @return the question and answer of the current card
+   * @throws NoSuchElementException if the flashcard no longer exists
    */
-  public FlashcardEducationList getFlashcardEducationList(long id, User user) {
-    return flashcardEducationListRepository
-        .findById(new FlashcardEducationList.FlashcardEducationListPK(id, user))
-        .orElseThrow();
+  private FlashcardContent getCurrentEducationContent(StudySession session) {
+    return flashcardService.getFlashcardContent(session.getCurrentEducationCard());
+  }
+
+  /**
+   * Returns the session of a user who is in a learning session.
+   * A session held in memory is used without loading the user, so showing an
+   * answer costs a single query; otherwise the user is checked and the session
+   * is restored from its checkpoint.
+   *
+   * @param chatId the Telegram chat ID
+   * @return the session, or null if the user is not in a learning session
+   */
+  private StudySession findActiveSession(long chatId) {
+    StudySession session = studySessionEngine.findSession(chatId);
+    if (session != null) {
+      return session;
+    }
+    User user = userService.getUser(chatId);
+    return user.getCurrentFlashcard() == null
+        ? null
+        : studySessionEngine.getSession(user);
   }
 
   /**
@@ -94,7 +116,7 @@ public class EducationService implements IEducationService {
     try {
       User user = userService.getUser(chatId);
 
-      return user.getFlashcardPackageList();
+      return flashcardService.getFlashcardPackagesOfUser(user.getId());
     } catch (Exception e) {
       log.error("Cannot get flashcard package list", e);
       return List.of();
@@ -104,33 +126,33 @@ public class EducationService implements IEducationService {
   public EditMessageText generateFlashcardList(long flashcardPackageId,
                                                long chatId, int messageId) {
     try {
-      FlashcardPackage flashcardPackage =
-          flashcardService.getFlashcardPackage(flashcardPackageId);
-      List<Flashcard> flashcardList = flashcardPackage.getFlashcardList();
+      long[] cardIds = packageCardIndex.getCardIds(flashcardPackageId);
+      if (cardIds.length == 0) {
+        throw new NoSuchElementException("Flashcard package " +
+                                         flashcardPackageId + " is empty");
+      }
       User user = userService.getUser(chatId);
 
-      Collections.shuffle(flashcardList);
+      // the order is a permutation selected by the seed, so only the seed is stored
+      StudySession session = studySessionEngine.start(
+          chatId, flashcardPackageId, cardIds,
+          ThreadLocalRandom.current().nextLong());
+      FlashcardContent firstFlashcard =
+          flashcardService.getFlashcardContent(session.getCurrentEducationCard());
 
-      List<FlashcardEducationList> flashcardEducationList = new ArrayList<>();
-      for (int i = 0; i < flashcardList.size(); i++) {
-        flashcardEducationList.add(new FlashcardEducationList(
-            new FlashcardEducationList.FlashcardEducationListPK(i + 1, user),
-            flashcardList.get(i)));
-      }
-
-      flashcardEducationListRepository.saveAll(flashcardEducationList);
       user.setCurrentFlashcard(1L);
+      user.setLastActivity(LocalDateTime.now());
       userService.save(user);
 
       EditMessageText editMessage =
           EditMessageText.builder()
               .chatId(chatId)
               .messageId(messageId)
-              .text("Flashcard 1/" + flashcardList.size() + "\n\nQuestion:\n" +
-                    flashcardList.get(0).getQuestion())
+              .text("Flashcard 1/" + cardIds.length + "\n\nQuestion:\n" +
+                    firstFlashcard.question())
               .replyMarkup(new InlineKeyboardMarkup(
                   List.of(List.of(InlineKeyboardButton.builder()
-                                      .callbackData("SHOW_ANSWER_CLICKED")
+                                      .callbackData(CallbackOpcode.SHOW_ANSWER.encode())
                                       .text("Show answer")
                                       .build()))))
               .build();
@@ -143,10 +165,10 @@ public class EducationService implements IEducationService {
 
   public EditMessageText changeMsgToMsgWithShownAnswer(long chatId,
                                                        int messageId) {
-    User user = userService.getUser(chatId);
+    StudySession session = findActiveSession(chatId);
 
     // Validate that user is in a learning session
-    if (user.getCurrentFlashcard() == null) {
+    if (session == null) {
       log.warn("User {} tried to show answer but is not in a learning session", chatId);
       return EditMessageText.builder()
           .chatId(chatId)
@@ -156,12 +178,7 @@ public class EducationService implements IEducationService {
           .build();
     }
 
-    long numberOfFlashcards =
-        flashcardEducationListRepository
-            .countFlashcardEducationListByFlashcardEducationListPK_User(user);
-    FlashcardEducationList flashcardEducationList =
-        getFlashcardEducationList(user.getCurrentFlashcard(), user);
-    Flashcard currentFlashcard = flashcardEducationList.getFlashcard();
+    FlashcardContent currentFlashcard = getCurrentEducationContent(session);
 
     EditMessageText messageWithShownAnswer =
         EditMessageText.builder()
@@ -171,30 +188,29 @@ public class EducationService implements IEducationService {
                              .keyboardRow(List.of(
                                  InlineKeyboardButton.builder()
                                      .text("Idk")
-                                     .callbackData("0%_BUTTON_CLICKED")
+                                     .callbackData(CallbackOpcode.ANSWER_0.encode())
                                      .build(),
                                  InlineKeyboardButton.builder()
                                      .text("25%")
-                                     .callbackData("25%_BUTTON_CLICKED")
+                                     .callbackData(CallbackOpcode.ANSWER_25.encode())
                                      .build(),
                                  InlineKeyboardButton.builder()
                                      .text("50%")
-                                     .callbackData("50%_BUTTON_CLICKED")
+                                     .callbackData(CallbackOpcode.ANSWER_50.encode())
                                      .build(),
                                  InlineKeyboardButton.builder()
                                      .text("75%")
-                                     .callbackData("75%_BUTTON_CLICKED")
+                                     .callbackData(CallbackOpcode.ANSWER_75.encode())
                                      .build(),
                                  InlineKeyboardButton.builder()
                                      .text("Easy")
-                                     .callbackData("100%_BUTTON_CLICKED")
+                                     .callbackData(CallbackOpcode.ANSWER_100.encode())
                                      .build()))
                              .build())
-            .text("Flashcard " +
-                  flashcardEducationList.getFlashcardEducationListPK().getId() +
-                  "/" + numberOfFlashcards + "\n\nQuestion:\n" +
-                  currentFlashcard.getQuestion() + "\n\nAnswer:\n" +
-                  currentFlashcard.getAnswer())
+            .text("Flashcard " + session.getEducationPosition() + "/" +
+                  session.getEducationSize() + "\n\nQuestion:\n" +
+                  currentFlashcard.question() + "\n\nAnswer:\n" +
+                  currentFlashcard.answer())
             .build();
 
     return messageWithShownAnswer;
@@ -214,52 +230,45 @@ public class EducationService implements IEducationService {
           .build();
     }
 
-    return nextRepetitionFlashcard(chatId, messageId,
-                                   user.getCurrentFlashcard());
+    return nextRepetitionFlashcard(user, studySessionEngine.getSession(user),
+                                   messageId);
   }
 
-  public EditMessageText nextRepetitionFlashcard(long chatId, int messageId,
-                                                 long currentFlashcardId) {
-    User user = userService.getUser(chatId);
-
-    user.setCurrentFlashcard(currentFlashcardId + 1);
-    userService.save(user);
-
-    long numberOfFlashcards =
-        flashcardRepetitionListRepository
-            .countFlashcardRepetitionListByFlashcardRepetitionListPK_User(user);
+  /**
+   * Moves the session to the next card of the repetition list, or finishes
+   * the session once the list is exhausted.
+   */
+  private EditMessageText nextRepetitionFlashcard(User user,
+                                                  StudySession session,
+                                                  int messageId) {
+    long chatId = user.getId();
 
-    if (user.getCurrentFlashcard() > numberOfFlashcards) {
-      FlashcardRepetitionList firstCard =
-          flashcardRepetitionListRepository
-              .findAllByFlashcardRepetitionListPK_User(user)
-              .get(0);
-      long packageId = firstCard.getFlashcard().getFlashcardPackage().getId();
+    if (!session.advanceRepetition()) {
       clearTemporaryResourcesAfterEducation(chatId);
-      return createCongratulationMessage(chatId, messageId, packageId);
+      return createCongratulationMessage(chatId, messageId,
+                                         session.getPackageId());
     }
 
-    FlashcardRepetitionList flashcardRepetitionList =
-        flashcardRepetitionListRepository
-            .findById(new FlashcardRepetitionList.FlashcardRepetitionListPK(
-                user.getCurrentFlashcard(), user))
-            .orElseThrow();
-    Flashcard currentFlashcard = flashcardRepetitionList.getFlashcard();
+    user.setCurrentFlashcard((long) session.getRepetitionPosition());
+    user.setLastActivity(LocalDateTime.now());
+    userService.save(user);
+
+    FlashcardContent currentFlashcard =
+        flashcardService.getFlashcardContent(session.getCurrentRepetitionCard());
 
     EditMessageText editMessage =
         EditMessageText.builder()
             .chatId(chatId)
             .messageId(messageId)
-            .text(
-                "Flashcard (repetition) " +
-                flashcardRepetitionList.getFlashcardRepetitionListPK().getId() +
-                "/" + numberOfFlashcards + "\n\nQuestion:\n" +
-                currentFlashcard.getQuestion())
+            .text("Flashcard (repetition) " +
+                  session.getRepetitionPosition() + "/" +
+                  session.getRepetitionSize() + "\n\nQuestion:\n" +
+                  currentFlashcard.question())
             .replyMarkup(
                 InlineKeyboardMarkup.builder()
                     .keyboardRow(List.of(
                         InlineKeyboardButton.builder()
-                            .callbackData("SHOW_ANSWER_REPETITION_CLICKED")
+                            .callbackData(CallbackOpcode.SHOW_ANSWER_REPETITION.encode())
                             .text("Show answer")
                             .build()))
                     .build())
@@ -270,11 +279,8 @@ public class EducationService implements IEducationService {
 
   public void clearTemporaryResourcesAfterEducation(long chatId) {
     User user = userService.getUser(chatId);
-    flashcardEducationListRepository.deleteAllByFlashcardEducationListPK_User(
-        user);
-    flashcardRepetitionListRepository.deleteAllByFlashcardRepetitionListPK_User(
-        user);
-    flashcardStatusRepository.deleteAllByFlashcardStatusPK_User(user);
+    // the rows of the session are removed in bulk by the checkpoint writer
+    studySessionEngine.finish(chatId);
 
     user.setCurrentFlashcard(null);
     userService.save(user);
@@ -328,8 +334,8 @@ public class EducationService implements IEducationService {
         .replyMarkup(InlineKeyboardMarkup.builder()
                          .keyboardRow(List.of(
                              InlineKeyboardButton.builder()
-                                 .callbackData("FLASHCARD_PACKAGE_%d_SELECTED"
-                                                   .formatted(packageId))
+                                 .callbackData(CallbackOpcode.START_EDUCATION
+                                                   .encode(packageId))
                                  .text("Learn again")
                                  .build()))
                          .build())
@@ -349,33 +355,32 @@ public class EducationService implements IEducationService {
           .build();
     }
 
-    user.setCurrentFlashcard(user.getCurrentFlashcard() + 1);
-    userService.save(user);
-
-    long numberOfFlashcards =
-        flashcardEducationListRepository
-            .countFlashcardEducationListByFlashcardEducationListPK_User(user);
+    StudySession session = studySessionEngine.getSession(user);
 
-    if (user.getCurrentFlashcard() > numberOfFlashcards) {
-      return nextRepetitionFlashcard(chatId, messageId, 0);
+    if (!session.advanceEducation()) {
+      session.startRepetition();
+      studySessionEngine.checkpoint(session);
+      return nextRepetitionFlashcard(user, session, messageId);
     }
 
-    FlashcardEducationList flashcardEducationList =
-        getFlashcardEducationList(user.getCurrentFlashcard(), user);
-    Flashcard currentFlashcard = flashcardEducationList.getFlashcard();
+    user.setCurrentFlashcard((long) session.getEducationPosition());
+    user.setLastActivity(LocalDateTime.now());
+    userService.save(user);
+    studySessionEngine.checkpoint(session);
+
+    FlashcardContent currentFlashcard = getCurrentEducationContent(session);
 
     EditMessageText editMessage =
         EditMessageText.builder()
             .chatId(chatId)
             .messageId(messageId)
-            .text("Flashcard " +
-                  flashcardEducationList.getFlashcardEducationListPK().getId() +
-                  "/" + numberOfFlashcards + "\n\nQuestion:\n" +
-                  currentFlashcard.getQuestion())
+            .text("Flashcard " + session.getEducationPosition() + "/" +
+                  session.getEducationSize() + "\n\nQuestion:\n" +
+                  currentFlashcard.question())
             .replyMarkup(InlineKeyboardMarkup.builder()
                              .keyboardRow(List.of(
                                  InlineKeyboardButton.builder()
-                                     .callbackData("SHOW_ANSWER_CLICKED")
+                                     .callbackData(CallbackOpcode.SHOW_ANSWER.encode())
                                      .text("Show answer")
                                      .build()))
                              .build())
@@ -393,43 +398,18 @@ public class EducationService implements IEducationService {
       return;
     }
 
-    Flashcard currentFlashcard =
-        getFlashcardEducationList(user.getCurrentFlashcard(), user)
-            .getFlashcard();
-    if (flashcardRepetitionListRepository.findAllByFlashcard(currentFlashcard)
-            .isEmpty()) {
-      FlashcardRepetitionList flashcardRepetitionList =
-          new FlashcardRepetitionList(
-              new FlashcardRepetitionList.FlashcardRepetitionListPK(
-                  getAvailableIdForRepetitionList(chatId), user),
-              currentFlashcard);
-      flashcardRepetitionListRepository.save(flashcardRepetitionList);
-    }
-  }
-
-  /**
-   * Finds the next available ID for adding a flashcard to the repetition list.
-   * Returns 1 if the list is empty, otherwise returns the maximum ID + 1.
-   *
-   * @param chatId the Telegram chat ID of the user
-   * @return the next available ID for the repetition list
-   */
-  private long getAvailableIdForRepetitionList(long chatId) {
-    List<Long> idsList = flashcardRepetitionListRepository.findIds(chatId);
-
-    if (idsList.isEmpty()) {
-      return 1L;
-    } else {
-      return idsList.get(0) + 1;
+    StudySession session = studySessionEngine.getSession(user);
+    if (session.addCurrentToRepetition()) {
+      studySessionEngine.checkpoint(session);
     }
   }
 
   public EditMessageText
   changeMsgToMsgWithShownAnswerRepetition(long chatId, int messageId) {
-    User user = userService.getUser(chatId);
+    StudySession session = findActiveSession(chatId);
 
     // Validate that user is in a learning session
-    if (user.getCurrentFlashcard() == null) {
+    if (session == null) {
       log.warn("User {} tried to show repetition answer but is not in a learning session", chatId);
       return EditMessageText.builder()
           .chatId(chatId)
@@ -439,15 +419,8 @@ public class EducationService implements IEducationService {
           .build();
     }
 
-    long numberOfFlashcards =
-        flashcardRepetitionListRepository
-            .countFlashcardRepetitionListByFlashcardRepetitionListPK_User(user);
-    FlashcardRepetitionList flashcardRepetitionList =
-        flashcardRepetitionListRepository
-            .findById(new FlashcardRepetitionList.FlashcardRepetitionListPK(
-                user.getCurrentFlashcard(), user))
-            .orElseThrow();
-    Flashcard currentFlashcard = flashcardRepetitionList.getFlashcard();
+    FlashcardContent currentFlashcard =
+        flashcardService.getFlashcardContent(session.getCurrentRepetitionCard());
 
     EditMessageText messageWithShownAnswer =
         EditMessageText.builder()
@@ -458,15 +431,14 @@ public class EducationService implements IEducationService {
                     .keyboardRow(List.of(
                         InlineKeyboardButton.builder()
                             .text("Next Question")
-                            .callbackData("NEXT_QUESTION_REPETITION_CLICKED")
+                            .callbackData(CallbackOpcode.NEXT_QUESTION_REPETITION.encode())
                             .build()))
                     .build())
             .text(
-                "Flashcard " +
-                flashcardRepetitionList.getFlashcardRepetitionListPK().getId() +
-                "/" + numberOfFlashcards + "\n\nQuestion:\n" +
-                currentFlashcard.getQuestion() + "\n\nAnswer:\n" +
-                currentFlashcard.getAnswer())
+                "Flashcard " + session.getRepetitionPosition() + "/" +
+                session.getRepetitionSize() + "\n\nQuestion:\n" +
+                currentFlashcard.question() + "\n\nAnswer:\n" +
+                currentFlashcard.answer())
             .build();
 
     return messageWithShownAnswer;
@@ -481,20 +453,19 @@ public class EducationService implements IEducationService {
       return;
     }
 
-    FlashcardEducationList flashcardEducationList =
-        getFlashcardEducationList(user.getCurrentFlashcard(), user);
-    Flashcard currentFlashcard = flashcardEducationList.getFlashcard();
+    StudySession session = studySessionEngine.getSession(user);
+    long currentCardId = session.getCurrentEducationCard();
 
     Optional<FlashcardStatus> flashcardStatusOptional =
         flashcardStatusRepository.findById(new FlashcardStatus.FlashcardStatusPK(
-            user,
-            currentFlashcard)); // TODO: repair problem
+            chatId,
+            currentCardId)); // TODO: repair problem
                                 // https://stackoverflow.com/questions/76887311/listresultsconsumer-duplicate-row-was-found-and-assert-was-specified
 
     if (flashcardStatusOptional.isEmpty()) {
       flashcardStatusRepository.save(new FlashcardStatus(
-          new FlashcardStatus.FlashcardStatusPK(user, currentFlashcard),
-          numberOfDuplicates,
+          new FlashcardStatus.FlashcardStatusPK(chatId, currentCardId),
+          user, flashcardRepository.getReferenceById(currentCardId), numberOfDuplicates,
           null)); // TODO: set to appropriate difficulty
       if (numberOfDuplicates == 1) {
         user.addHardCard(1L);
@@ -522,58 +493,23 @@ public class EducationService implements IEducationService {
       return;
     }
 
-    long numberOfAllFlashcardsInDeck =
-        flashcardEducationListRepository
-            .countFlashcardEducationListByFlashcardEducationListPK_User(user);
-    long currentFlashcardId =
-        flashcardEducationList.getFlashcardEducationListPK().getId();
+    userService.save(user);
+
+    long currentFlashcardId = session.getEducationPosition();
 
     double divider = 1.0 / (numberOfDuplicates + 1);
 
     for (int i = 0; i < numberOfDuplicates; i++) {
       long numberOfFlashcardsAhead =
-          numberOfAllFlashcardsInDeck - currentFlashcardId;
+          session.getEducationSize() - currentFlashcardId;
       long flashcardStep = (long)(numberOfFlashcardsAhead * divider) +
                            1; // because of "+ 1" newCoord can be out of range
       long newCoord = currentFlashcardId + flashcardStep * (i + 1);
 
-      if (newCoord >= numberOfAllFlashcardsInDeck) {
-        flashcardEducationListRepository.save(new FlashcardEducationList(
-            new FlashcardEducationList.FlashcardEducationListPK(
-                numberOfAllFlashcardsInDeck + 1, user),
-            currentFlashcard));
-      } else {
-        FlashcardEducationList savedFlashcardEducationList =
-            flashcardEducationListRepository
-                .findById(new FlashcardEducationList.FlashcardEducationListPK(
-                    newCoord, user))
-                .orElseThrow();
-
-        flashcardEducationListRepository.save(new FlashcardEducationList(
-            new FlashcardEducationList.FlashcardEducationListPK(newCoord, user),
-            currentFlashcard));
-        newCoord++;
-        FlashcardEducationList nextFlashcard;
-        while (newCoord <= numberOfAllFlashcardsInDeck) {
-          nextFlashcard = getFlashcardEducationList(newCoord, user);
-          savedFlashcardEducationList.setFlashcardEducationListPK(
-              new FlashcardEducationList.FlashcardEducationListPK(
-                  nextFlashcard.getFlashcardEducationListPK().getId(), user));
-          flashcardEducationListRepository.save(savedFlashcardEducationList);
-          savedFlashcardEducationList = nextFlashcard;
-          newCoord++;
-        }
-
-        savedFlashcardEducationList.setFlashcardEducationListPK(
-            new FlashcardEducationList.FlashcardEducationListPK(newCoord,
-                                                                user));
-        flashcardEducationListRepository.save(savedFlashcardEducationList);
-      }
-
-      userService.save(user);
-
-      numberOfAllFlashcardsInDeck++;
+      session.insertEducationCard((int)(newCoord - currentFlashcardId));
     }
+
+    studySessionEngine.checkpoint(session);
   }
 
   public void decreaseNumberOfDuplicatesIfExists(long chatId) {
@@ -585,12 +521,11 @@ public class EducationService implements IEducationService {
       return;
     }
 
-    FlashcardEducationList flashcardEducationList =
-        getFlashcardEducationList(user.getCurrentFlashcard(), user);
-    Flashcard currentFlashcard = flashcardEducationList.getFlashcard();
+    long currentFlashcardId =
+        studySessionEngine.getSession(user).getCurrentEducationCard();
     Optional<FlashcardStatus> flashcardStatusOptional =
         flashcardStatusRepository.findById(
-            new FlashcardStatus.FlashcardStatusPK(user, currentFlashcard));
+            new FlashcardStatus.FlashcardStatusPK(chatId, currentFlashcardId));
 
     if (flashcardStatusOptional.isPresent()) {
       FlashcardStatus flashcardStatus = flashcardStatusOptional.get();
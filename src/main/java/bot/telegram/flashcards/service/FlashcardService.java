@@ -1,14 +1,16 @@
 package bot.telegram.flashcards.service;
 
+import bot.telegram.flashcards.cache.FlashcardContentCache;
 import bot.telegram.flashcards.models.Flashcard;
 import bot.telegram.flashcards.models.FlashcardPackage;
+import bot.telegram.flashcards.repository.FlashcardContent;
 import bot.telegram.flashcards.repository.FlashcardPackageRepository;
 import bot.telegram.flashcards.repository.FlashcardRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Service for managing flashcard and flashcard package operations.
@@ -20,6 +22,7 @@ import java.util.List;
 public class FlashcardService {
     private final FlashcardRepository flashcardRepository;
     private final FlashcardPackageRepository flashcardPackageRepository;
+    private final FlashcardContentCache flashcardContentCache;
 
     /**
      * Retrieves all flashcard IDs that belong to a specific flashcard package.
@@ -32,15 +35,31 @@ public class FlashcardService {
      */
     public List<Long> getFlashcardIdsByFlashcardsId(Long flashcardsId) {
         //TODO: this method show NullPointerException if flashcardsId == null, even if we have flashcardsId in test
-        FlashcardPackage flashcards = flashcardRepository.findById(flashcardsId).orElseThrow().getFlashcardPackage();
-        List<Long> flashcardIds = new ArrayList<>();
-
-        if(flashcards != null){
-            List<Flashcard> flashcardList = flashcards.getFlashcardList();
-            for(Flashcard flashcard : flashcardList)
-                flashcardIds.add(flashcard.getId());
+        if (!flashcardRepository.existsById(flashcardsId)) {
+            throw new NoSuchElementException("No flashcard " + flashcardsId);
         }
-        return flashcardIds;
+        Long packageId = flashcardRepository.findPackageIdById(flashcardsId);
+        return packageId == null ? List.of() : flashcardRepository.findIdsByPackageId(packageId);
+    }
+
+    /**
+     * Retrieves the IDs of all flashcards of a package, ordered by ID, without loading the cards.
+     *
+     * @param packageId the ID of the flashcard package
+     * @return list of flashcard IDs, empty if the package has no cards
+     */
+    public List<Long> getFlashcardIdsOfPackage(long packageId) {
+        return flashcardRepository.findIdsByPackageId(packageId);
+    }
+
+    /**
+     * Retrieves all flashcard packages owned by a user, without their cards.
+     *
+     * @param userId the ID of the owner
+     * @return list of packages owned by the user
+     */
+    public List<FlashcardPackage> getFlashcardPackagesOfUser(long userId) {
+        return flashcardPackageRepository.findAllByUserId(userId);
     }
 
     /**
@@ -53,4 +72,30 @@ public class FlashcardService {
     public FlashcardPackage getFlashcardPackage(long packageId) {
         return flashcardPackageRepository.findById(packageId).orElseThrow();
     }
+
+    /**
+     * Retrieves a flashcard by its ID.
+     *
+     * @param flashcardId the ID of the flashcard
+     * @return the Flashcard entity
+     * @throws java.util.NoSuchElementException if flashcard with given ID is not found
+     */
+    public Flashcard getFlashcard(long flashcardId) {
+        return flashcardRepository.findById(flashcardId).orElseThrow();
+    }
+
+    /**
+     * Retrieves the question and answer of a flashcard for rendering, from the content cache if possible.
+     *
+     * @param flashcardId the ID of the flashcard
+     * @return the content of the flashcard
+     * @throws java.util.NoSuchElementException if flashcard with given ID is not found
+     */
+    public FlashcardContent getFlashcardContent(long flashcardId) {
+        FlashcardContent content = flashcardContentCache.get(flashcardId);
+        if (content == null) {
+            throw new NoSuchElementException("No flashcard " + flashcardId);
+        }
+        return content;
+    }
 }
@@ -0,0 +1,153 @@
+package bot.telegram.flashcards.service;
+
+import bot.telegram.flashcards.metrics.BotMetrics;
+import bot.telegram.flashcards.metrics.OperationTimer;
+import bot.telegram.flashcards.service.interfaces.IEducationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+
+/**
+ * IEducationService that times every operation of {@link EducationService}.
+ * Injected wherever IEducationService is required; the timers are registered once, at startup.
+ */
+@Primary
+@Service
+public class MeteredEducationService implements IEducationService {
+    private final EducationService educationService;
+    private final OperationTimer generateFlashcardList;
+    private final OperationTimer showAnswer;
+    private final OperationTimer showAnswerRepetition;
+    private final OperationTimer duplicateFlashcard;
+    private final OperationTimer moveFlashcardToRepetitionList;
+    private final OperationTimer decreaseNumberOfDuplicates;
+    private final OperationTimer nextFlashcard;
+    private final OperationTimer nextRepetitionFlashcard;
+    private final OperationTimer clearTemporaryResources;
+
+    public MeteredEducationService(EducationService educationService, BotMetrics botMetrics) {
+        this.educationService = educationService;
+        this.generateFlashcardList = botMetrics.educationTimer("generateFlashcardList");
+        this.showAnswer = botMetrics.educationTimer("showAnswer");
+        this.showAnswerRepetition = botMetrics.educationTimer("showAnswerRepetition");
+        this.duplicateFlashcard = botMetrics.educationTimer("duplicateFlashcard");
+        this.moveFlashcardToRepetitionList = botMetrics.educationTimer("moveFlashcardToRepetitionList");
+        this.decreaseNumberOfDuplicates = botMetrics.educationTimer("decreaseNumberOfDuplicates");
+        this.nextFlashcard = botMetrics.educationTimer("nextFlashcard");
+        this.nextRepetitionFlashcard = botMetrics.educationTimer("nextRepetitionFlashcard");
+        this.clearTemporaryResources = botMetrics.educationTimer("clearTemporaryResources");
+    }
+
+    @Override
+    public EditMessageText generateFlashcardList(long flashcardPackageId, long chatId, int messageId) {
+        long startedAt = generateFlashcardList.start();
+        try {
+            EditMessageText message = educationService.generateFlashcardList(flashcardPackageId, chatId, messageId);
+            generateFlashcardList.success(startedAt);
+            return message;
+        } catch (RuntimeException e) {
+            generateFlashcardList.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public EditMessageText changeMsgToMsgWithShownAnswer(long chatId, int messageId) {
+        long startedAt = showAnswer.start();
+        try {
+            EditMessageText message = educationService.changeMsgToMsgWithShownAnswer(chatId, messageId);
+            showAnswer.success(startedAt);
+            return message;
+        } catch (RuntimeException e) {
+            showAnswer.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public EditMessageText changeMsgToMsgWithShownAnswerRepetition(long chatId, int messageId) {
+        long startedAt = showAnswerRepetition.start();
+        try {
+            EditMessageText message = educationService.changeMsgToMsgWithShownAnswerRepetition(chatId, messageId);
+            showAnswerRepetition.success(startedAt);
+            return message;
+        } catch (RuntimeException e) {
+            showAnswerRepetition.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public void duplicateFlashcard(long chatId, int numberOfDuplicates) {
+        long startedAt = duplicateFlashcard.start();
+        try {
+            educationService.duplicateFlashcard(chatId, numberOfDuplicates);
+            duplicateFlashcard.success(startedAt);
+        } catch (RuntimeException e) {
+            duplicateFlashcard.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public void moveFlashcardToRepetitionList(long chatId) {
+        long startedAt = moveFlashcardToRepetitionList.start();
+        try {
+            educationService.moveFlashcardToRepetitionList(chatId);
+            moveFlashcardToRepetitionList.success(startedAt);
+        } catch (RuntimeException e) {
+            moveFlashcardToRepetitionList.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public void decreaseNumberOfDuplicatesIfExists(long chatId) {
+        long startedAt = decreaseNumberOfDuplicates.start();
+        try {
+            educationService.decreaseNumberOfDuplicatesIfExists(chatId);
+            decreaseNumberOfDuplicates.success(startedAt);
+        } catch (RuntimeException e) {
+            decreaseNumberOfDuplicates.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public EditMessageText nextFlashcard(long chatId, int messageId) {
+        long startedAt = nextFlashcard.start();
+        try {
+            EditMessageText message = educationService.nextFlashcard(chatId, messageId);
+            nextFlashcard.success(startedAt);
+            return message;
+        } catch (RuntimeException e) {
+            nextFlashcard.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public EditMessageText nextRepetitionFlashcard(long chatId, int messageId) {
+        long startedAt = nextRepetitionFlashcard.start();
+        try {
+            EditMessageText message = educationService.nextRepetitionFlashcard(chatId, messageId);
+            nextRepetitionFlashcard.success(startedAt);
+            return message;
+        } catch (RuntimeException e) {
+            nextRepetitionFlashcard.failure(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public void clearTemporaryResourcesAfterEducation(long chatId) {
+        long startedAt = clearTemporaryResources.start();
+        try {
+            educationService.clearTemporaryResourcesAfterEducation(chatId);
+            clearTemporaryResources.success(startedAt);
+        } catch (RuntimeException e) {
+            clearTemporaryResources.failure(startedAt);
+            throw e;
+        }
+    }
+}
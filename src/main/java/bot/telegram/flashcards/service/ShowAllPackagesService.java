@@ -1,7 +1,11 @@
 package bot.telegram.flashcards.service;
 
+import bot.telegram.flashcards.cache.PackageCardIndex;
+import bot.telegram.flashcards.cache.PackageCatalogCache;
+import bot.telegram.flashcards.misc.CallbackOpcode;
 import bot.telegram.flashcards.models.Flashcard;
 import bot.telegram.flashcards.models.FlashcardPackage;
+import bot.telegram.flashcards.repository.FlashcardContent;
 import bot.telegram.flashcards.repository.FlashcardPackageRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -13,13 +17,15 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKe
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class ShowAllPackagesService {
 
     private FlashcardPackageRepository flashcardPackageRepository;
+    private PackageCatalogCache packageCatalogCache;
+    private PackageCardIndex packageCardIndex;
+    private FlashcardService flashcardService;
 
 
 //    get list of packages
@@ -27,20 +33,23 @@ public class ShowAllPackagesService {
         return (List<FlashcardPackage>) flashcardPackageRepository.findAll();
     }
 
-//    show all packages for users in list of buttons of packages
+//    show first page of packages for users in list of buttons of packages
     public SendMessage getAllPackages(Long chatId) {
-        List<FlashcardPackage> flashcardPackageList = getListOfPackages();
-
         return SendMessage.builder()
                 .chatId(chatId)
                 .text("Choose package:")
-                .replyMarkup(InlineKeyboardMarkup.builder()
-                        .keyboard(flashcardPackageList
-                        .stream()
-                        .map(flashcardPackage -> List.of(InlineKeyboardButton.builder()
-                                .callbackData("SHOW_ALL_PACKAGES_%d_SELECTED".formatted(flashcardPackage.getId()))
-                                .text(flashcardPackage.getTitle()).build())).collect(Collectors.toList())).build())
-                                .build();
+                .replyMarkup(packageCatalogCache.getFirstPage())
+                .build();
+    }
+
+//    show page of packages starting with the given package
+    public EditMessageText getPackagesPage(long firstPackageId, int messageId, long chatId) {
+        return EditMessageText.builder()
+                .chatId(chatId)
+                .messageId(messageId)
+                .text("Choose package:")
+                .replyMarkup(packageCatalogCache.getPage(firstPackageId))
+                .build();
     }
 
 //    show chosen package
@@ -52,16 +61,16 @@ public class ShowAllPackagesService {
                 .messageId(messageId)
                 .text(String.format("%s                Number of cards: %d\n\n%s",
                         flashcardPackage.getTitle(),
-                        flashcardPackage.getFlashcardList().size(),
+                        packageCardIndex.getCardIds(packageId).length,
                         flashcardPackage.getDescription()))
                 .replyMarkup(InlineKeyboardMarkup.builder()
                         .keyboard(List.of(List.of(InlineKeyboardButton.builder()
                                 .text("Start education")
-                                .callbackData("FLASHCARD_PACKAGE_%d_SELECTED".formatted(packageId))
+                                .callbackData(CallbackOpcode.START_EDUCATION.encode(packageId))
                                 .build()),
                                 List.of(InlineKeyboardButton.builder()
                                 .text("Show first card of package")
-                                .callbackData("FIRST_CARD_%d_OF_PACKAGE_%d_CLICKED".formatted(packageId,0))
+                                .callbackData(CallbackOpcode.FIRST_CARD.encode(packageId, 0))
                                 .build())))
                         .build())
                 .build();
@@ -70,16 +79,16 @@ public class ShowAllPackagesService {
 
     //    get list of cards
     public List<Flashcard> getAllCardsOfPackage(long packageId) {
-        FlashcardPackage flashcardPackage = flashcardPackageRepository.findById(packageId).orElseThrow();
+        FlashcardPackage flashcardPackage = flashcardPackageRepository.findWithFlashcardsById(packageId).orElseThrow();
 
         return new ArrayList<>(flashcardPackage.getFlashcardList());
     }
 
     //    show next or previous card of chosen package
     public EditMessageText getPreviousOrNextCard(long packageId, int index,int messageId, long chatId) {
-        List<Flashcard> allCards = getAllCardsOfPackage(packageId);
+        long[] cardIds = packageCardIndex.getCardIds(packageId);
 
-        if (allCards.isEmpty()) {
+        if (cardIds.length == 0) {
             return EditMessageText.builder()
                     .chatId(chatId)
                     .messageId(messageId)
@@ -87,25 +96,27 @@ public class ShowAllPackagesService {
                     .build();
         }
 
-        Flashcard flashcard = allCards.get(index);
+//        cards may have been removed since the button was sent, then the last card is shown
+        index = Math.min(index, cardIds.length - 1);
+        FlashcardContent flashcard = flashcardService.getFlashcardContent(cardIds[index]);
 
-        int currentCardNumber = allCards.indexOf(flashcard) + 1;
+        int currentCardNumber = index + 1;
 
         InlineKeyboardMarkup.InlineKeyboardMarkupBuilder markupBuilder = InlineKeyboardMarkup.builder();
         List<InlineKeyboardButton> row = new ArrayList<>();
 
 //        check if user is not on first card, if user see first card - this button will not be shown
         if(index > 0)
-            row.add(createButtonForCards(packageId, index - 1, "PREVIOUS_CARD_%d_OF_PACKAGE_%d_CLICKED", "Previous"));
+            row.add(createButtonForCards(packageId, index - 1, CallbackOpcode.PREVIOUS_CARD, "Previous"));
 
 //        check if user is not on first card or last card, if user see first card or last card - this button will not be shown
-        if(index != 0 && index != allCards.size() - 1 )
-            row.add(createButtonForCards(packageId, 0, "SHOW_ALL_PACKAGES_%d_SELECTED", "Back to description"));
+        if(index != 0 && index != cardIds.length - 1 )
+            row.add(createButtonForCards(packageId, 0, CallbackOpcode.SHOW_PACKAGE, "Back to description"));
 
 
 //        check if user is not on last, if user see last card - this button will not be shown
-        if(index < allCards.size() - 1)
-            row.add(createButtonForCards(packageId, index + 1, "NEXT_CARD_%d_OF_PACKAGE_%d_CLICKED", "Next"));
+        if(index < cardIds.length - 1)
+            row.add(createButtonForCards(packageId, index + 1, CallbackOpcode.NEXT_CARD, "Next"));
 
         markupBuilder.keyboardRow(row);
 
@@ -114,17 +125,17 @@ public class ShowAllPackagesService {
                 .messageId(messageId)
                 .text(String.format("Card: %d \n\nQuestion:\n%s\n\nAnswer:\n%s",
                         currentCardNumber,
-                        flashcard.getQuestion(),
-                        flashcard.getAnswer()))
+                        flashcard.question(),
+                        flashcard.answer()))
                 .replyMarkup(markupBuilder.build())
                 .build();
     }
 
 //    create button for cards
-    private InlineKeyboardButton createButtonForCards(long packageId, int index, String callbackData, String text) {
+    private InlineKeyboardButton createButtonForCards(long packageId, int index, CallbackOpcode opcode, String text) {
         return InlineKeyboardButton.builder()
                 .text(text)
-                .callbackData(callbackData.formatted(packageId, index))
+                .callbackData(opcode.encode(packageId, index))
                 .build();
     }
 }
@@ -1,6 +1,7 @@
 package bot.telegram.flashcards.service;
 
-import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.cache.KnownUserRegistry;
+import bot.telegram.flashcards.misc.CallbackOpcode;
 import bot.telegram.flashcards.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,21 +23,26 @@ import java.util.List;
 @Slf4j
 public class StartService {
     private final UserRepository userRepository;
+    private final KnownUserRegistry knownUserRegistry;
 
     /**
      * Adds a new user to the database if they don't already exist.
      * This method is called when a user first interacts with the bot.
+     * Known users are recognized without a query; others are registered with an insert
+     * that does nothing if the user exists, so concurrent /start commands cannot collide.
      *
      * @param chatId the Telegram chat ID of the user
      * @return true if the user already existed in the repository, false if they were newly added or an error occurred
      */
     public boolean addUserIfNotInRepo(long chatId) {
         try {
-            boolean didUserExistInRepo = userRepository.existsById(chatId);
-            if (!didUserExistInRepo) {
-                userRepository.save(User.builder().id(chatId).build());
+            if (knownUserRegistry.isKnown(chatId)) {
+                return true;
             }
 
+            boolean didUserExistInRepo = userRepository.insertIfAbsent(chatId) == 0;
+            knownUserRegistry.add(chatId);
+
             return didUserExistInRepo;
         }catch (Exception e){
             log.error("Cannot put into db user", e);
@@ -82,7 +88,7 @@ public class StartService {
                     .replyMarkup(new InlineKeyboardMarkup(List.of
                             (List.of(InlineKeyboardButton.builder()
                                     .text("Get Guide")
-                                    .callbackData("GET_GUIDE_BUTTON_CLICKED")
+                                    .callbackData(CallbackOpcode.GET_GUIDE.encode())
                                     .build()))))
                     .build();
             return List.of(welcomeMessage);
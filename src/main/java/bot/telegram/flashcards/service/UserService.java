@@ -3,27 +3,75 @@ package bot.telegram.flashcards.service;
 import bot.telegram.flashcards.models.User;
 import bot.telegram.flashcards.repository.UserRepository;
 import bot.telegram.flashcards.service.interfaces.IUserService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
 
 /**
  * Implementation of IUserService.
  * Handles user-related operations following Single Responsibility Principle.
  */
+@Slf4j
 @Service
 public class UserService implements IUserService {
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, TransactionTemplate transactionTemplate) {
         this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public User getUser(long id) {
-        return userRepository.findById(id).orElseThrow();
+        UserUnitOfWork unitOfWork = UserUnitOfWork.current();
+        if (unitOfWork == null) {
+            return userRepository.findById(id).orElseThrow();
+        }
+
+        User user = unitOfWork.getUser(id);
+        if (user == null) {
+            user = userRepository.findById(id).orElseThrow();
+            unitOfWork.register(user);
+        }
+        return user;
     }
 
     public void save(User user) {
-        userRepository.save(user);
+        UserUnitOfWork unitOfWork = UserUnitOfWork.current();
+        if (unitOfWork == null) {
+            userRepository.save(user);
+        } else {
+            unitOfWork.markDirty(user);
+        }
+    }
+
+    public void runInUnitOfWork(Runnable work) {
+        if (UserUnitOfWork.current() != null) {
+            work.run();
+            return;
+        }
+
+        UserUnitOfWork unitOfWork = UserUnitOfWork.begin();
+        try {
+            work.run();
+        } finally {
+            unitOfWork.end();
+        }
+        // reached only if the work completed, so a half-handled update never writes its changes
+        Collection<User> dirtyUsers = unitOfWork.getDirtyUsers();
+        if (dirtyUsers.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (User user : dirtyUsers) {
+                if (userRepository.updateSession(user) == 0) {
+                    log.warn("Cannot write the session of user {}: the user no longer exists", user.getId());
+                }
+            }
+        });
     }
 }
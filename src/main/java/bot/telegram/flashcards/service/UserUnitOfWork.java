@@ -0,0 +1,59 @@
+package bot.telegram.flashcards.service;
+
+import bot.telegram.flashcards.models.User;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Users loaded and changed while a single update is handled.
+ * Every service asking for the same user gets the same instance, and saves are only recorded;
+ * {@link UserService#runInUnitOfWork(Runnable)} writes the changed users once, when the update is handled.
+ *
+ * Bound to the handling thread, so it needs no synchronization.
+ */
+final class UserUnitOfWork {
+    private static final ThreadLocal<UserUnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Map<Long, User> users = new HashMap<>();
+    private final Map<Long, User> dirtyUsers = new LinkedHashMap<>();
+
+    private UserUnitOfWork() {
+    }
+
+    /**
+     * @return the unit of work of the current thread, or null outside of update handling
+     */
+    static UserUnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    static UserUnitOfWork begin() {
+        UserUnitOfWork unitOfWork = new UserUnitOfWork();
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    void end() {
+        CURRENT.remove();
+    }
+
+    User getUser(long id) {
+        return users.get(id);
+    }
+
+    void register(User user) {
+        users.put(user.getId(), user);
+    }
+
+    void markDirty(User user) {
+        users.put(user.getId(), user);
+        dirtyUsers.put(user.getId(), user);
+    }
+
+    Collection<User> getDirtyUsers() {
+        return dirtyUsers.values();
+    }
+}
@@ -70,6 +70,7 @@ public interface IEducationService {
     
     /**
      * Clears all temporary learning resources for a user
+     * The rows of the session are removed asynchronously, off the request path
      * @param chatId the user's chat ID
      */
     void clearTemporaryResourcesAfterEducation(long chatId);
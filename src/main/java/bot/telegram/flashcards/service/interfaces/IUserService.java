@@ -21,4 +21,12 @@ public interface IUserService {
      * @param user the user entity to save
      */
     void save(User user);
+
+    /**
+     * Handles one update as a unit of work: each user is loaded at most once,
+     * and all saves are written in one transaction, with one update per user, when the work completes.
+     * If the work throws, its changes are discarded
+     * @param work the handling of the update
+     */
+    void runInUnitOfWork(Runnable work);
 }
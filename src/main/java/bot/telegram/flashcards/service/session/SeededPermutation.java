@@ -0,0 +1,71 @@
+package bot.telegram.flashcards.service.session;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Pseudo-random permutation of the ordinals {@code 0 .. size - 1}, fully defined by a seed.
+ *
+ * A balanced Feistel network over the smallest even number of bits that covers {@code size} is a bijection
+ * of that power-of-two domain whatever the round function is; cycle walking (applying it again while the
+ * result is out of range) restricts it to {@code size} elements. The domain is less than four times
+ * {@code size}, so one ordinal takes a few rounds on average, in O(1) memory.
+ *
+ * This is what lets a session store only its seed instead of the shuffled order of its cards.
+ */
+final class SeededPermutation implements IntUnaryOperator {
+    private static final int ROUNDS = 4;
+    private static final long ROUND_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    private final int size;
+    private final long seed;
+    private final int halfBits;
+    private final long halfMask;
+
+    /**
+     * @param size the number of ordinals to permute
+     * @param seed the seed that selects the permutation
+     */
+    SeededPermutation(int size, long seed) {
+        this.size = size;
+        this.seed = seed;
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(size - 1, 1));
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+    }
+
+    /**
+     * @param ordinal the position in the permuted order, {@code 0 <= ordinal < size}
+     * @return the ordinal placed at that position
+     */
+    @Override
+    public int applyAsInt(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " out of " + size);
+        }
+        long value = ordinal;
+        do {
+            value = encrypt(value);
+        } while (value >= size);
+        return (int) value;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ (mix(seed + (round + 1) * ROUND_INCREMENT + right) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * Finalizer of SplitMix64, used as the round function.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,324 @@
+package bot.telegram.flashcards.service.session;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Learning queue of a single session, backed by primitive arrays of flashcard IDs.
+ *
+ * The queue consists of the base order (the cards of the package) and the duplicates of hard cards.
+ * The base order is never materialized: base item {@code i} is the card at ordinal {@code order(i)} of the
+ * package, where {@code order} is a {@link SeededPermutation}, so the order is persisted as a seed.
+ *
+ * Every item has a sparse ordering key: base item {@code i} owns the slot key {@code (1 + i) << 32},
+ * and a duplicate placed after base item {@code i} gets {@code ((1 + i) << 32) | seq}, so it sorts
+ * between base items {@code i} and {@code i + 1}, after older duplicates of the same gap. The key of the current
+ * item is the persisted cursor, and the keys of duplicates are the persisted order of their rows, so a duplicate
+ * is stored with one insert and nothing is ever renumbered; with 2^32 free keys in every gap and a sequence
+ * that only grows within a session, no rebalancing is needed.
+ *
+ * Duplicates live in a binary min-heap ordered by key, which makes reinsertion O(log d) for d pending
+ * duplicates and reading the next card O(1) plus a heap pop, without ever shifting the base array.
+ * Items are held as ordinals of the package, so the ordinal of the current card is always known.
+ *
+ * Not thread-safe; {@link StudySession} guards all access.
+ */
+final class StudyQueue {
+    private static final int SLOT_SHIFT = 32;
+    private static final long SEQ_MASK = (1L << SLOT_SHIFT) - 1;
+    private static final long BASE_SLOT = 1;
+
+    private final long[] packageCards;
+    private final int baseLength;
+    private final IntUnaryOperator order;
+    private final int baseStart;
+    private int baseCursor;
+
+    private long[] heapKeys = new long[8];
+    private int[] heapOrdinals = new int[8];
+    private int heapSize;
+    private int duplicates;
+    private long duplicateSeq;
+
+    private final int consumedBefore;
+    private int advanced;
+    private int currentOrdinal;
+    private long currentCard;
+    private long currentKey;
+
+    private long[] unsavedKeys = new long[8];
+    private long[] unsavedCards = new long[8];
+    private int unsavedSize;
+
+    /**
+     * @param baseCards the cards in the order they are shown
+     */
+    StudyQueue(long[] baseCards) {
+        this(baseCards, baseCards.length, IntUnaryOperator.identity(), 0, 0);
+    }
+
+    /**
+     * @param cards the cards of the package by ordinal; the array is not modified
+     * @param length the number of cards of the package that take part in the session
+     * @param order the permutation of ordinals that defines the base order
+     */
+    StudyQueue(long[] cards, int length, IntUnaryOperator order) {
+        this(cards, length, order, 0, 0);
+    }
+
+    private StudyQueue(long[] cards, int length, IntUnaryOperator order, int baseStart, int consumedBefore) {
+        this.packageCards = cards;
+        this.baseLength = length;
+        this.order = order;
+        this.baseStart = baseStart;
+        this.baseCursor = baseStart;
+        this.consumedBefore = consumedBefore;
+    }
+
+    /**
+     * Rebuilds a queue from its persisted cursor and duplicate rows, starting with the card that was current
+     * at the checkpoint.
+     *
+     * @param cards the cards of the package by ordinal, ordered by ID as kept by {@code PackageCardIndex}
+     * @param length the number of cards of the package that take part in the session
+     * @param order the permutation of ordinals that defines the base order
+     * @param cursorKey the ordering key of the card that was current
+     * @param duplicateKeys the ordering keys of the duplicates not shown before the current card
+     * @param duplicateCards the cards of the duplicates, parallel to {@code duplicateKeys}
+     * @param consumedBefore the number of cards shown before the current one
+     * @return the restored queue, positioned before the current card
+     */
+    static StudyQueue restore(long[] cards, int length, IntUnaryOperator order, long cursorKey,
+                              long[] duplicateKeys, long[] duplicateCards, int consumedBefore) {
+        // a duplicate is shown after the base item of its slot, a base item is shown itself
+        long baseIndex = (cursorKey >>> SLOT_SHIFT) - BASE_SLOT + ((cursorKey & SEQ_MASK) == 0 ? 0 : 1);
+        int baseStart = (int) Math.max(0, Math.min(baseIndex, length));
+
+        StudyQueue queue = new StudyQueue(cards, length, order, baseStart, consumedBefore);
+        for (int i = 0; i < duplicateKeys.length; i++) {
+            // the ordinal of a duplicate is looked up once; a card removed from the package is dropped
+            int ordinal = Arrays.binarySearch(cards, duplicateCards[i]);
+            if (duplicateKeys[i] >= cursorKey && ordinal >= 0) {
+                queue.pushHeap(duplicateKeys[i], ordinal);
+                queue.duplicates++;
+                queue.duplicateSeq = Math.max(queue.duplicateSeq, duplicateKeys[i] & SEQ_MASK);
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Moves to the next card.
+     *
+     * @return false if the queue is exhausted
+     */
+    boolean advance() {
+        boolean hasBase = baseCursor < baseLength;
+        if (heapSize > 0 && (!hasBase || heapKeys[0] < slotKey(baseCursor))) {
+            currentOrdinal = heapOrdinals[0];
+            currentKey = heapKeys[0];
+            popHeap();
+        } else if (hasBase) {
+            currentKey = slotKey(baseCursor);
+            currentOrdinal = order.applyAsInt(baseCursor++);
+        } else {
+            return false;
+        }
+        currentCard = packageCards[currentOrdinal];
+        advanced++;
+        return true;
+    }
+
+    /**
+     * Places the current card again so that it becomes roughly the {@code offset}-th card after the current one.
+     * Pending duplicates are not counted when locating the place, which keeps the insert O(log d).
+     *
+     * @param offset how many cards ahead of the current one it should appear, at least 1
+     */
+    void insertAhead(int offset) {
+        long anchor = Math.min((long) baseCursor + Math.max(offset, 1) - 2, baseLength - 1L);
+        long key = ((BASE_SLOT + anchor) << SLOT_SHIFT) | (++duplicateSeq & SEQ_MASK);
+        long cardId = currentCard;
+        pushHeap(key, currentOrdinal);
+        duplicates++;
+
+        if (unsavedSize == unsavedKeys.length) {
+            unsavedKeys = Arrays.copyOf(unsavedKeys, unsavedSize * 2);
+            unsavedCards = Arrays.copyOf(unsavedCards, unsavedSize * 2);
+        }
+        unsavedKeys[unsavedSize] = key;
+        unsavedCards[unsavedSize++] = cardId;
+    }
+
+    long current() {
+        return currentCard;
+    }
+
+    /**
+     * @return the ordinal of the current card in the package
+     */
+    int currentOrdinal() {
+        return currentOrdinal;
+    }
+
+    /**
+     * @return the ordering key of the current card; rows before it are no longer needed
+     */
+    long currentKey() {
+        return currentKey;
+    }
+
+    /**
+     * @return the number of cards of the package that make up the base order
+     */
+    int baseLength() {
+        return baseLength;
+    }
+
+    /**
+     * @return the 1-based position of the current card in the whole session
+     */
+    int position() {
+        return consumedBefore + advanced;
+    }
+
+    /**
+     * @return the total number of cards in the session, including shown ones and duplicates
+     */
+    int size() {
+        return consumedBefore + (baseLength - baseStart) + duplicates;
+    }
+
+    /**
+     * @return the number of rows of {@link #pendingDuplicates()}, without materializing them
+     */
+    int pendingDuplicateCount() {
+        return heapSize + (advanced > 0 && (currentKey & SEQ_MASK) != 0 ? 1 : 0);
+    }
+
+    /**
+     * Returns the duplicates that are not shown yet, including the current card if it is a duplicate,
+     * in the order they will be shown. Together with the current key they describe the whole queue.
+     *
+     * @return duplicate rows from the current card on
+     */
+    Rows pendingDuplicates() {
+        int length = pendingDuplicateCount();
+        boolean currentIsDuplicate = length > heapSize;
+        long[] keys = new long[length];
+        long[] cards = new long[length];
+        int offset = 0;
+        if (currentIsDuplicate) {
+            keys[0] = currentKey;
+            cards[0] = currentCard;
+            offset = 1;
+        }
+        System.arraycopy(heapKeys, 0, keys, offset, heapSize);
+        System.arraycopy(heapCards(), 0, cards, offset, heapSize);
+        sortByKeys(keys, cards);
+        return new Rows(keys, cards);
+    }
+
+    /**
+     * Returns the duplicates inserted since the previous call that are not shown yet, and forgets all of them.
+     *
+     * @return rows that still have to be persisted
+     */
+    Rows drainUnsaved() {
+        long[] keys = new long[unsavedSize];
+        long[] cards = new long[unsavedSize];
+        int size = 0;
+        for (int i = 0; i < unsavedSize; i++) {
+            if (unsavedKeys[i] >= currentKey) {
+                keys[size] = unsavedKeys[i];
+                cards[size++] = unsavedCards[i];
+            }
+        }
+        unsavedSize = 0;
+        return new Rows(Arrays.copyOf(keys, size), Arrays.copyOf(cards, size));
+    }
+
+    private long slotKey(int baseIndex) {
+        return (BASE_SLOT + baseIndex) << SLOT_SHIFT;
+    }
+
+    private long baseCard(int baseIndex) {
+        return packageCards[order.applyAsInt(baseIndex)];
+    }
+
+    private long[] heapCards() {
+        long[] cards = new long[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            cards[i] = packageCards[heapOrdinals[i]];
+        }
+        return cards;
+    }
+
+    private void pushHeap(long key, int ordinal) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapOrdinals = Arrays.copyOf(heapOrdinals, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKeys[parent] <= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[parent];
+            heapOrdinals[i] = heapOrdinals[parent];
+            i = parent;
+        }
+        heapKeys[i] = key;
+        heapOrdinals[i] = ordinal;
+    }
+
+    private void popHeap() {
+        long key = heapKeys[--heapSize];
+        int ordinal = heapOrdinals[heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (key <= heapKeys[child]) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapOrdinals[i] = heapOrdinals[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapOrdinals[i] = ordinal;
+    }
+
+    /**
+     * Insertion sort of a (small, heap-ordered) duplicate snapshot, carrying the cards along with their keys.
+     */
+    private static void sortByKeys(long[] keys, long[] cards) {
+        for (int i = 1; i < keys.length; i++) {
+            long key = keys[i];
+            long card = cards[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                cards[j + 1] = cards[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            cards[j + 1] = card;
+        }
+    }
+
+    /**
+     * Rows of a queue as they are persisted.
+     *
+     * @param keys the ordering keys
+     * @param cards the flashcard IDs, parallel to {@code keys}
+     */
+    record Rows(long[] keys, long[] cards) {
+        static final Rows EMPTY = new Rows(new long[0], new long[0]);
+    }
+}
@@ -0,0 +1,212 @@
+package bot.telegram.flashcards.service.session;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * In-memory state of one user's learning session: the learning queue and the repetition list.
+ * Membership in the repetition list is a bitset over the ordinals of the package, so checking
+ * whether a card is already listed is a single bit test scoped to the session.
+ * Updates of a chat are processed one at a time by the dispatcher; the monitor only guards
+ * against the checkpoint writer reading a half-applied change.
+ */
+public final class StudySession {
+    private static final int REPETITION_KEY_SHIFT = 32;
+
+    private final long chatId;
+    private final long packageId;
+    private final long seed;
+    private final StudyQueue educationQueue;
+
+    private long[] repetitionCards;
+    private final BitSet repetitionMembers;
+    private int repetitionSize;
+    private int repetitionPosition;
+    private boolean repetitionPhase;
+
+    private boolean persisted;
+    private int persistedRepetitionSize;
+
+    /**
+     * @param seed the seed of the base order of {@code educationQueue}
+     * @param repetitionMembers the ordinals of the cards of {@code repetitionCards}; kept by the session
+     * @param persisted whether the session is already stored, as for a session restored from its checkpoint
+     */
+    StudySession(long chatId, long packageId, long seed, StudyQueue educationQueue, long[] repetitionCards,
+                 BitSet repetitionMembers, boolean repetitionPhase, boolean persisted) {
+        this.chatId = chatId;
+        this.packageId = packageId;
+        this.seed = seed;
+        this.educationQueue = educationQueue;
+        this.repetitionCards = repetitionCards.length == 0 ? new long[8] : repetitionCards;
+        this.repetitionMembers = repetitionMembers;
+        this.repetitionSize = repetitionCards.length;
+        this.repetitionPhase = repetitionPhase;
+        this.persisted = persisted;
+        this.persistedRepetitionSize = persisted ? repetitionCards.length : 0;
+    }
+
+    public long getChatId() {
+        return chatId;
+    }
+
+    public long getPackageId() {
+        return packageId;
+    }
+
+    /**
+     * Moves to the next card of the learning queue.
+     *
+     * @return false if all cards of the learning queue were shown
+     */
+    public synchronized boolean advanceEducation() {
+        return educationQueue.advance();
+    }
+
+    public synchronized long getCurrentEducationCard() {
+        return educationQueue.current();
+    }
+
+    public synchronized int getEducationPosition() {
+        return educationQueue.position();
+    }
+
+    public synchronized int getEducationSize() {
+        return educationQueue.size();
+    }
+
+    /**
+     * Schedules the current learning card to be shown again, {@code offset} cards after the current one.
+     *
+     * @param offset distance from the current card
+     */
+    public synchronized void insertEducationCard(int offset) {
+        educationQueue.insertAhead(offset);
+    }
+
+    /**
+     * Adds the current learning card to the repetition list unless it is already there.
+     *
+     * @return true if the card was added
+     */
+    public synchronized boolean addCurrentToRepetition() {
+        int ordinal = educationQueue.currentOrdinal();
+        if (repetitionMembers.get(ordinal)) {
+            return false;
+        }
+        repetitionMembers.set(ordinal);
+        if (repetitionSize == repetitionCards.length) {
+            repetitionCards = Arrays.copyOf(repetitionCards, repetitionSize * 2);
+        }
+        repetitionCards[repetitionSize++] = educationQueue.current();
+        return true;
+    }
+
+    /**
+     * Switches the session to the repetition phase, before its first card.
+     */
+    public synchronized void startRepetition() {
+        repetitionPhase = true;
+        repetitionPosition = 0;
+    }
+
+    /**
+     * Moves to the next card of the repetition list.
+     *
+     * @return false if all cards of the repetition list were shown
+     */
+    public synchronized boolean advanceRepetition() {
+        if (repetitionPosition >= repetitionSize) {
+            return false;
+        }
+        repetitionPosition++;
+        return true;
+    }
+
+    public synchronized long getCurrentRepetitionCard() {
+        return repetitionCards[repetitionPosition - 1];
+    }
+
+    public synchronized int getRepetitionPosition() {
+        return repetitionPosition;
+    }
+
+    public synchronized int getRepetitionSize() {
+        return repetitionSize;
+    }
+
+    synchronized void restoreRepetitionPosition(int position) {
+        repetitionPosition = Math.min(position, repetitionSize);
+    }
+
+    /**
+     * Takes a consistent copy of the changes that have to be persisted since the previous checkpoint.
+     * The first checkpoint of a session, or the one after a failed write, contains all rows.
+     * The base order is never written: it is stored as the seed, the card count and the cursor.
+     *
+     * @return checkpoint of the session
+     */
+    synchronized Checkpoint checkpoint() {
+        boolean full = !persisted;
+        StudyQueue.Rows education;
+        if (repetitionPhase) {
+            educationQueue.drainUnsaved();
+            education = StudyQueue.Rows.EMPTY;
+        } else if (full) {
+            educationQueue.drainUnsaved();
+            education = educationQueue.pendingDuplicates();
+        } else {
+            education = educationQueue.drainUnsaved();
+        }
+
+        int from = full ? 0 : persistedRepetitionSize;
+        long[] keys = new long[repetitionSize - from];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) (from + i + 1) << REPETITION_KEY_SHIFT;
+        }
+        StudyQueue.Rows repetition = new StudyQueue.Rows(keys, Arrays.copyOfRange(repetitionCards, from, repetitionSize));
+
+        // shown duplicates are deleted by the checkpoint, so the pending ones are the rows that remain
+        int duplicateCount = repetitionPhase ? 0 : educationQueue.pendingDuplicateCount();
+
+        persisted = true;
+        persistedRepetitionSize = repetitionSize;
+        return new Checkpoint(chatId, full, packageId, seed, educationQueue.baseLength(),
+                educationQueue.currentKey(), repetitionPhase, duplicateCount, repetitionSize,
+                repetitionMembers.toByteArray(), education, repetition);
+    }
+
+    /**
+     * Makes the next checkpoint rewrite all rows, after a checkpoint could not be written.
+     */
+    synchronized void invalidateCheckpoint() {
+        persisted = false;
+    }
+
+    /**
+     * Changes of a session as written to the database.
+     *
+     * @param chatId the Telegram chat ID
+     * @param full whether all rows of the user have to be replaced
+     * @param packageId the package being learned
+     * @param seed the seed of the base order
+     * @param cardCount the number of cards in the base order
+     * @param cursorKey ordering key of the current learning card
+     * @param repetitionPhase whether the session is in the repetition phase
+     * @param duplicateCount the number of learning rows once the checkpoint is written
+     * @param repetitionSize the number of repetition rows once the checkpoint is written
+     * @param repetitionMembers the bitset of the ordinals in the repetition list
+     * @param education learning rows (duplicates) to insert
+     * @param repetition repetition rows to insert
+     */
+    record Checkpoint(long chatId, boolean full, long packageId, long seed, int cardCount, long cursorKey,
+                      boolean repetitionPhase, int duplicateCount, int repetitionSize, byte[] repetitionMembers,
+                      StudyQueue.Rows education, StudyQueue.Rows repetition) {
+        /**
+         * @return ordering key before which learning rows are already shown
+         */
+        long educationCutoff() {
+            return repetitionPhase ? Long.MAX_VALUE : cursorKey;
+        }
+    }
+}
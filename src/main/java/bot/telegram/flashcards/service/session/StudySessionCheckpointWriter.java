@@ -0,0 +1,227 @@
+package bot.telegram.flashcards.service.session;
+
+import bot.telegram.flashcards.models.Flashcard;
+import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.models.temporary.FlashcardEducationList;
+import bot.telegram.flashcards.models.temporary.FlashcardRepetitionList;
+import bot.telegram.flashcards.models.temporary.StudySessionState;
+import bot.telegram.flashcards.repository.FlashcardEducationListRepository;
+import bot.telegram.flashcards.repository.FlashcardRepetitionListRepository;
+import bot.telegram.flashcards.repository.FlashcardStatusRepository;
+import bot.telegram.flashcards.repository.StudySessionStateRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists study sessions asynchronously, off the request path.
+ * Changes are coalesced per chat: however many clicks happen between two flushes,
+ * the cursor and the counters of the session header are updated once, only the rows added since the previous checkpoint are inserted
+ * and the shown ones are removed with one range delete, in one transaction.
+ * Starting a session writes a single row, whatever the size of the package,
+ * and finishing one removes all its rows with one bulk delete per table.
+ * A single writer thread keeps the writes of a chat in order.
+ */
+@Slf4j
+@Component
+public class StudySessionCheckpointWriter {
+    /**
+     * Marker for a finished session whose rows have to be removed.
+     */
+    private static final Object FINISHED = new Object();
+
+    private final FlashcardEducationListRepository flashcardEducationListRepository;
+    private final FlashcardRepetitionListRepository flashcardRepetitionListRepository;
+    private final FlashcardStatusRepository flashcardStatusRepository;
+    private final StudySessionStateRepository studySessionStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Object> pending = new ConcurrentHashMap<>();
+    /**
+     * Held while the rows of a finished session are removed, see {@link #completeFinished(long)}.
+     */
+    private final Object finishLock = new Object();
+    /**
+     * Held while a checkpoint is written, see {@link #discard(long)}.
+     */
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "session-checkpoint"));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StudySessionCheckpointWriter(FlashcardEducationListRepository flashcardEducationListRepository,
+                                        FlashcardRepetitionListRepository flashcardRepetitionListRepository,
+                                        FlashcardStatusRepository flashcardStatusRepository,
+                                        StudySessionStateRepository studySessionStateRepository,
+                                        TransactionTemplate transactionTemplate,
+                                        @Value("${bot.session.checkpoint-interval:1s}") Duration checkpointInterval) {
+        this.flashcardEducationListRepository = flashcardEducationListRepository;
+        this.flashcardRepetitionListRepository = flashcardRepetitionListRepository;
+        this.flashcardStatusRepository = flashcardStatusRepository;
+        this.studySessionStateRepository = studySessionStateRepository;
+        this.transactionTemplate = transactionTemplate;
+        executor.scheduleWithFixedDelay(this::flush, checkpointInterval.toMillis(), checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the current state of the session to be written.
+     *
+     * @param session the changed session
+     */
+    public void markDirty(StudySession session) {
+        pending.put(session.getChatId(), session);
+    }
+
+    /**
+     * Schedules removal of the persisted rows of a finished session.
+     * A session started for the same chat before the flush supersedes the removal.
+     *
+     * @param chatId the Telegram chat ID
+     */
+    public void markFinished(long chatId) {
+        pending.put(chatId, FINISHED);
+    }
+
+    /**
+     * Completes a pending removal before a new session of the chat is started.
+     * The first checkpoint of the new session replaces its own rows, but the card statuses are written
+     * on the request path and would be removed by a late flush; they are deleted here instead, with one
+     * statement. Once this returns, no removal for the chat is pending or in progress.
+     *
+     * @param chatId the Telegram chat ID
+     */
+    public void completeFinished(long chatId) {
+        synchronized (finishLock) {
+            if (pending.remove(chatId, FINISHED)) {
+                flashcardStatusRepository.deleteAllByUserId(chatId);
+            }
+        }
+    }
+
+    /**
+     * Drops any pending change of a chat whose rows are about to be removed by other means.
+     * Waits for a checkpoint of the chat being written, so none is written after the rows are removed.
+     *
+     * @param chatId the Telegram chat ID
+     */
+    public void discard(long chatId) {
+        synchronized (writeLock) {
+            pending.remove(chatId);
+        }
+    }
+
+    /**
+     * @return the number of chats waiting for a checkpoint
+     */
+    public int getPendingCheckpoints() {
+        return pending.size();
+    }
+
+    /**
+     * Writes every pending change.
+     * A session whose checkpoint fails is scheduled again and rewritten in full on the next flush.
+     */
+    public void flush() {
+        // a snapshot, so a session scheduled again after a failure is not retried by the same flush
+        for (Long chatId : List.copyOf(pending.keySet())) {
+            Object state = pending.get(chatId);
+            if (state == FINISHED) {
+                removeFinished(chatId);
+                continue;
+            }
+            synchronized (writeLock) {
+                // a state replaced or discarded meanwhile is not written by this flush
+                if (state == null || !pending.remove(chatId, state)) {
+                    continue;
+                }
+                StudySession session = (StudySession) state;
+                try {
+                    write(session);
+                } catch (Exception e) {
+                    log.error("Cannot write checkpoint of study session for user {}", chatId, e);
+                    session.invalidateCheckpoint();
+                    pending.putIfAbsent(chatId, session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the changes of the session since its previous checkpoint.
+     */
+    private void write(StudySession session) {
+        StudySession.Checkpoint checkpoint = session.checkpoint();
+        transactionTemplate.executeWithoutResult(status -> {
+            long chatId = checkpoint.chatId();
+            if (checkpoint.full()) {
+                deleteRows(chatId);
+                entityManager.persist(new StudySessionState(chatId, checkpoint.packageId(), checkpoint.seed(),
+                        checkpoint.cardCount(), checkpoint.cursorKey(), checkpoint.repetitionPhase(),
+                        checkpoint.duplicateCount(), checkpoint.repetitionSize(), checkpoint.repetitionMembers()));
+            } else {
+                if (studySessionStateRepository.updateCursor(chatId, checkpoint.cursorKey(), checkpoint.repetitionPhase(),
+                        checkpoint.duplicateCount(), checkpoint.repetitionSize(), checkpoint.repetitionMembers()) == 0) {
+                    throw new IllegalStateException("No study session persisted for user " + chatId);
+                }
+                flashcardEducationListRepository.deleteAllByUserIdBefore(chatId, checkpoint.educationCutoff());
+            }
+
+            User user = entityManager.getReference(User.class, chatId);
+            StudyQueue.Rows education = checkpoint.education();
+            for (int i = 0; i < education.keys().length; i++) {
+                entityManager.persist(new FlashcardEducationList(null, user, education.keys()[i],
+                        entityManager.getReference(Flashcard.class, education.cards()[i])));
+            }
+            StudyQueue.Rows repetition = checkpoint.repetition();
+            for (int i = 0; i < repetition.keys().length; i++) {
+                entityManager.persist(new FlashcardRepetitionList(null, user, repetition.keys()[i],
+                        entityManager.getReference(Flashcard.class, repetition.cards()[i])));
+            }
+        });
+    }
+
+    /**
+     * Removes every row of a finished session, unless a new session took its place.
+     */
+    private void removeFinished(long chatId) {
+        synchronized (finishLock) {
+            if (!pending.remove(chatId, FINISHED)) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    deleteRows(chatId);
+                    flashcardStatusRepository.deleteAllByUserId(chatId);
+                });
+            } catch (Exception e) {
+                log.error("Cannot remove rows of finished study session for user {}", chatId, e);
+            }
+        }
+    }
+
+    private void deleteRows(long chatId) {
+        flashcardEducationListRepository.deleteAllByUserId(chatId);
+        flashcardRepetitionListRepository.deleteAllByUserId(chatId);
+        studySessionStateRepository.deleteByUserId(chatId);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+}
@@ -0,0 +1,176 @@
+package bot.telegram.flashcards.service.session;
+
+import bot.telegram.flashcards.cache.PackageCardIndex;
+import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.models.temporary.StudySessionState;
+import bot.telegram.flashcards.repository.FlashcardEducationListRepository;
+import bot.telegram.flashcards.repository.FlashcardRepetitionListRepository;
+import bot.telegram.flashcards.repository.OrderedFlashcard;
+import bot.telegram.flashcards.repository.StudySessionStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the learning sessions of active users in memory.
+ * Reads and reordering of the learning queue never touch the database; the session is persisted
+ * asynchronously by {@link StudySessionCheckpointWriter} and loaded back on first access after a restart.
+ */
+@Slf4j
+@Service
+public class StudySessionEngine {
+    private final FlashcardEducationListRepository flashcardEducationListRepository;
+    private final FlashcardRepetitionListRepository flashcardRepetitionListRepository;
+    private final StudySessionStateRepository studySessionStateRepository;
+    private final PackageCardIndex packageCardIndex;
+    private final StudySessionCheckpointWriter checkpointWriter;
+    private final Map<Long, StudySession> sessions = new ConcurrentHashMap<>();
+
+    public StudySessionEngine(FlashcardEducationListRepository flashcardEducationListRepository,
+                              FlashcardRepetitionListRepository flashcardRepetitionListRepository,
+                              StudySessionStateRepository studySessionStateRepository,
+                              PackageCardIndex packageCardIndex,
+                              StudySessionCheckpointWriter checkpointWriter) {
+        this.flashcardEducationListRepository = flashcardEducationListRepository;
+        this.flashcardRepetitionListRepository = flashcardRepetitionListRepository;
+        this.studySessionStateRepository = studySessionStateRepository;
+        this.packageCardIndex = packageCardIndex;
+        this.checkpointWriter = checkpointWriter;
+    }
+
+    /**
+     * Starts a new session positioned at the first card, replacing any previous session of the user.
+     * The cards are shown in the order of a permutation selected by the seed; no card list is copied.
+     *
+     * @param chatId the Telegram chat ID
+     * @param packageId the package being learned
+     * @param cardIds the cards of the package by ordinal, as kept by {@link PackageCardIndex}; not modified
+     * @param seed the seed of the order of the cards
+     * @return the new session
+     */
+    public StudySession start(long chatId, long packageId, long[] cardIds, long seed) {
+        checkpointWriter.completeFinished(chatId);
+        StudyQueue educationQueue = new StudyQueue(cardIds, cardIds.length, new SeededPermutation(cardIds.length, seed));
+        StudySession session = new StudySession(chatId, packageId, seed, educationQueue, new long[0],
+                new BitSet(cardIds.length), false, false);
+        session.advanceEducation();
+        sessions.put(chatId, session);
+        checkpointWriter.markDirty(session);
+        return session;
+    }
+
+    /**
+     * Returns the session of a user who is in a learning session, loading it from the last checkpoint if needed.
+     *
+     * @param user the user, with a non-null current flashcard
+     * @return the session of the user
+     * @throws NoSuchElementException if no persisted session exists
+     */
+    public StudySession getSession(User user) {
+        return sessions.computeIfAbsent(user.getId(), chatId -> load(chatId, user.getCurrentFlashcard()));
+    }
+
+    /**
+     * Returns the session of a user if it is held in memory, without touching the database.
+     *
+     * @param chatId the Telegram chat ID
+     * @return the session, or null if the user has no session in memory
+     */
+    public StudySession findSession(long chatId) {
+        return sessions.get(chatId);
+    }
+
+    /**
+     * Schedules the session to be persisted after it was changed.
+     *
+     * @param session the changed session
+     */
+    public void checkpoint(StudySession session) {
+        checkpointWriter.markDirty(session);
+    }
+
+    /**
+     * Drops the session of the user and schedules removal of its persisted rows.
+     *
+     * @param chatId the Telegram chat ID
+     */
+    public void finish(long chatId) {
+        sessions.remove(chatId);
+        checkpointWriter.markFinished(chatId);
+    }
+
+    /**
+     * Drops the sessions of users whose rows are about to be removed, without scheduling any write.
+     * Once this returns, no checkpoint of the users is written until a new session is started.
+     *
+     * @param chatIds the Telegram chat IDs
+     */
+    public void discard(Collection<Long> chatIds) {
+        for (Long chatId : chatIds) {
+            sessions.remove(chatId);
+            checkpointWriter.discard(chatId);
+        }
+    }
+
+    /**
+     * @return the number of sessions held in memory
+     */
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Rebuilds a session from its checkpoint: the header row and the duplicate and repetition rows.
+     * Cards added to the package since the start are left out of the session. If cards were removed,
+     * the seed is applied to the remaining ones, which changes the order of the cards not shown yet
+     * and may shift the ordinals of the repetition bitset.
+     */
+    private StudySession load(long chatId, long position) {
+        StudySessionState state = studySessionStateRepository.findById(chatId)
+                .orElseThrow(() -> new NoSuchElementException("No study session persisted for user " + chatId));
+        // the header counts the rows, so empty lists are not queried
+        List<OrderedFlashcard> educationRows = state.getDuplicateCount() == 0
+                ? List.of()
+                : flashcardEducationListRepository.findOrderedFlashcards(chatId);
+        List<OrderedFlashcard> repetitionRows = state.getRepetitionSize() == 0
+                ? List.of()
+                : flashcardRepetitionListRepository.findOrderedFlashcards(chatId);
+
+        long[] packageCards = packageCardIndex.getCardIds(state.getPackageId());
+        int cardCount = Math.min(state.getCardCount(), packageCards.length);
+
+        long[] educationKeys = new long[educationRows.size()];
+        long[] educationCards = new long[educationRows.size()];
+        for (int i = 0; i < educationKeys.length; i++) {
+            educationKeys[i] = educationRows.get(i).getOrderKey();
+            educationCards[i] = educationRows.get(i).getFlashcardId();
+        }
+        long[] repetitionCards = new long[repetitionRows.size()];
+        for (int i = 0; i < repetitionCards.length; i++) {
+            repetitionCards[i] = repetitionRows.get(i).getFlashcardId();
+        }
+
+        StudyQueue educationQueue = StudyQueue.restore(packageCards, cardCount,
+                new SeededPermutation(cardCount, state.getSeed()), state.getCursorKey(),
+                educationKeys, educationCards, (int) position - 1);
+        BitSet repetitionMembers = state.getRepetitionMembers() == null
+                ? new BitSet(cardCount)
+                : BitSet.valueOf(state.getRepetitionMembers());
+        StudySession session = new StudySession(chatId, state.getPackageId(), state.getSeed(), educationQueue,
+                repetitionCards, repetitionMembers, state.isRepetitionPhase(), true);
+        if (state.isRepetitionPhase()) {
+            session.restoreRepetitionPosition((int) position);
+        } else {
+            session.advanceEducation();
+        }
+
+        log.info("Restored study session of user {} at position {}", chatId, position);
+        return session;
+    }
+}
@@ -0,0 +1,131 @@
+package bot.telegram.flashcards.service.session;
+
+import bot.telegram.flashcards.dispatch.UpdateDispatcher;
+import bot.telegram.flashcards.repository.FlashcardEducationListRepository;
+import bot.telegram.flashcards.repository.FlashcardRepetitionListRepository;
+import bot.telegram.flashcards.repository.FlashcardStatusRepository;
+import bot.telegram.flashcards.repository.StudySessionStateRepository;
+import bot.telegram.flashcards.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clears learning sessions that were abandoned without /stop.
+ * A session whose last step is older than {@code bot.session.idle-ttl} is ended as /stop would end it:
+ * its rows are removed and the cursor of the user is cleared. Sessions are reaped in batches of
+ * {@code bot.session.reaper-batch-size} users, each batch in one transaction of one bulk statement per table,
+ * so a backlog of abandoned sessions never turns into a long transaction.
+ *
+ * A batch is cleared while the chats of its users are held by the {@link UpdateDispatcher}: a request that
+ * arrives meanwhile runs after the session is gone, and none in flight can write the session back.
+ */
+@Slf4j
+@Component
+public class StudySessionReaper {
+    private final UserRepository userRepository;
+    private final FlashcardEducationListRepository flashcardEducationListRepository;
+    private final FlashcardRepetitionListRepository flashcardRepetitionListRepository;
+    private final FlashcardStatusRepository flashcardStatusRepository;
+    private final StudySessionStateRepository studySessionStateRepository;
+    private final StudySessionEngine studySessionEngine;
+    private final UpdateDispatcher updateDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration idleTtl;
+    private final int batchSize;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "session-reaper"));
+
+    public StudySessionReaper(UserRepository userRepository,
+                              FlashcardEducationListRepository flashcardEducationListRepository,
+                              FlashcardRepetitionListRepository flashcardRepetitionListRepository,
+                              FlashcardStatusRepository flashcardStatusRepository,
+                              StudySessionStateRepository studySessionStateRepository,
+                              StudySessionEngine studySessionEngine,
+                              UpdateDispatcher updateDispatcher,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${bot.session.idle-ttl:24h}") Duration idleTtl,
+                              @Value("${bot.session.reaper-batch-size:500}") int batchSize,
+                              @Value("${bot.session.reaper-interval:15m}") Duration reaperInterval) {
+        this.userRepository = userRepository;
+        this.flashcardEducationListRepository = flashcardEducationListRepository;
+        this.flashcardRepetitionListRepository = flashcardRepetitionListRepository;
+        this.flashcardStatusRepository = flashcardStatusRepository;
+        this.studySessionStateRepository = studySessionStateRepository;
+        this.studySessionEngine = studySessionEngine;
+        this.updateDispatcher = updateDispatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.idleTtl = idleTtl;
+        this.batchSize = batchSize;
+        executor.scheduleWithFixedDelay(this::runReap, reaperInterval.toMillis(), reaperInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Clears every session idle for longer than the TTL.
+     *
+     * @return the number of cleared sessions, fewer if the thread was interrupted
+     */
+    public int reap() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(idleTtl);
+        int reaped = 0;
+        List<Long> userIds;
+        do {
+            // cleared sessions no longer match, so each batch starts from the first page
+            userIds = userRepository.findIdleSessionUserIds(cutoff, PageRequest.ofSize(batchSize));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            List<Long> batch = userIds;
+            try {
+                updateDispatcher.runExclusively(batch, () -> clear(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            reaped += batch.size();
+        } while (userIds.size() == batchSize);
+
+        if (reaped > 0) {
+            log.info("Cleared {} study sessions idle since before {}", reaped, cutoff);
+        }
+        return reaped;
+    }
+
+    /**
+     * Drops the sessions from memory first, so no pending checkpoint recreates the removed rows.
+     */
+    private void clear(List<Long> batch) {
+        studySessionEngine.discard(batch);
+        transactionTemplate.executeWithoutResult(status -> {
+            flashcardEducationListRepository.deleteAllByUserIdIn(batch);
+            flashcardRepetitionListRepository.deleteAllByUserIdIn(batch);
+            flashcardStatusRepository.deleteAllByUserIdIn(batch);
+            studySessionStateRepository.deleteAllByUserIdIn(batch);
+            userRepository.clearCurrentFlashcard(batch);
+        });
+    }
+
+    private void runReap() {
+        try {
+            reap();
+        } catch (Exception e) {
+            log.error("Cannot clear idle study sessions", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
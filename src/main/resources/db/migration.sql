@@ -3,11 +3,15 @@
 -- Description: Creates all necessary tables and constraints for the flashcard learning system
 
 -- Drop existing tables if they exist (in correct order to handle foreign key constraints)
+DROP TABLE IF EXISTS update_offset CASCADE;
+DROP TABLE IF EXISTS study_session CASCADE;
 DROP TABLE IF EXISTS flashcard_repetition_list CASCADE;
 DROP TABLE IF EXISTS flashcard_education_list CASCADE;
 DROP TABLE IF EXISTS flashcard CASCADE;
 DROP TABLE IF EXISTS flashcard_package CASCADE;
 DROP TABLE IF EXISTS account CASCADE;
+DROP SEQUENCE IF EXISTS flashcard_education_list_seq;
+DROP SEQUENCE IF EXISTS flashcard_repetition_list_seq;
 
 -- Create account table (User entity)
 CREATE TABLE account (
@@ -15,6 +19,7 @@ CREATE TABLE account (
     current_flashcard BIGINT,
     start_study_time TIMESTAMP,
     end_study_time TIMESTAMP,
+    last_activity TIMESTAMP,
     hard_card BIGINT DEFAULT 0,
     hardest_card BIGINT DEFAULT 0
 );
@@ -39,46 +44,76 @@ CREATE TABLE flashcard (
         REFERENCES flashcard_package(id) ON DELETE CASCADE
 );
 
--- Create flashcard_education_list table (composite primary key)
+-- Create flashcard_education_list table (rows ordered by sparse order_key, see StudyQueue)
 CREATE TABLE flashcard_education_list (
-    id BIGINT NOT NULL,
+    id BIGINT PRIMARY KEY,
     user_id BIGINT NOT NULL,
+    order_key BIGINT NOT NULL,
     flashcard_id BIGINT,
-    PRIMARY KEY (id, user_id),
     CONSTRAINT fk_education_user FOREIGN KEY (user_id)
         REFERENCES account(id) ON DELETE CASCADE,
     CONSTRAINT fk_education_flashcard FOREIGN KEY (flashcard_id)
         REFERENCES flashcard(id) ON DELETE CASCADE
 );
 
--- Create flashcard_repetition_list table (composite primary key)
+-- Create flashcard_repetition_list table (rows ordered by sparse order_key, see StudyQueue)
 CREATE TABLE flashcard_repetition_list (
-    id BIGINT NOT NULL,
+    id BIGINT PRIMARY KEY,
     user_id BIGINT NOT NULL,
+    order_key BIGINT NOT NULL,
     flashcard_id BIGINT,
-    PRIMARY KEY (id, user_id),
     CONSTRAINT fk_repetition_user FOREIGN KEY (user_id)
         REFERENCES account(id) ON DELETE CASCADE,
     CONSTRAINT fk_repetition_flashcard FOREIGN KEY (flashcard_id)
         REFERENCES flashcard(id) ON DELETE CASCADE
 );
 
+-- Create study_session table (cursor of a learning session; the card order is derived from the seed)
+CREATE TABLE study_session (
+    user_id BIGINT PRIMARY KEY,
+    package_id BIGINT NOT NULL,
+    seed BIGINT NOT NULL,
+    card_count INTEGER NOT NULL,
+    cursor_key BIGINT NOT NULL,
+    repetition_phase BOOLEAN NOT NULL,
+    duplicate_count INTEGER NOT NULL DEFAULT 0,
+    repetition_size INTEGER NOT NULL DEFAULT 0,
+    repetition_members BYTEA,
+    CONSTRAINT fk_study_session_user FOREIGN KEY (user_id)
+        REFERENCES account(id) ON DELETE CASCADE
+);
+
+-- Create update_offset table (lowest update not fully processed, restored after a restart)
+CREATE TABLE update_offset (
+    bot_name VARCHAR(255) PRIMARY KEY,
+    next_update_id INTEGER NOT NULL,
+    saved_at TIMESTAMP NOT NULL
+);
+
+-- Sequences of the temporary lists, incremented by the Hibernate allocation size so inserts can be batched
+CREATE SEQUENCE flashcard_education_list_seq INCREMENT BY 50;
+CREATE SEQUENCE flashcard_repetition_list_seq INCREMENT BY 50;
+
 -- Create indexes for better query performance
+CREATE INDEX idx_account_active_session ON account(id) WHERE current_flashcard IS NOT NULL;
 CREATE INDEX idx_flashcard_package_user ON flashcard_package(user_id);
 CREATE INDEX idx_flashcard_package ON flashcard(package_id);
-CREATE INDEX idx_education_user ON flashcard_education_list(user_id);
+CREATE UNIQUE INDEX idx_education_user_order ON flashcard_education_list(user_id, order_key);
 CREATE INDEX idx_education_flashcard ON flashcard_education_list(flashcard_id);
-CREATE INDEX idx_repetition_user ON flashcard_repetition_list(user_id);
+CREATE UNIQUE INDEX idx_repetition_user_order ON flashcard_repetition_list(user_id, order_key);
 CREATE INDEX idx_repetition_flashcard ON flashcard_repetition_list(flashcard_id);
 
 -- Comments for documentation
 COMMENT ON TABLE account IS 'Stores Telegram bot users and their learning session data';
 COMMENT ON TABLE flashcard_package IS 'Collections of flashcards grouped by topic';
 COMMENT ON TABLE flashcard IS 'Individual flashcards with questions and answers';
-COMMENT ON TABLE flashcard_education_list IS 'Temporary list of flashcards in user learning queue';
+COMMENT ON TABLE study_session IS 'Temporary cursor and card order seed of a user learning session';
+COMMENT ON TABLE flashcard_education_list IS 'Temporary list of duplicated flashcards in user learning queue';
 COMMENT ON TABLE flashcard_repetition_list IS 'Temporary list of flashcards marked for repetition';
+COMMENT ON TABLE update_offset IS 'Lowest Telegram update ID not fully processed, per bot';
 
 COMMENT ON COLUMN account.id IS 'Telegram chat ID of the user';
 COMMENT ON COLUMN account.current_flashcard IS 'Current position in learning session';
+COMMENT ON COLUMN account.last_activity IS 'Time of the last step of the learning session, used to clear idle sessions';
 COMMENT ON COLUMN account.hard_card IS 'Count of cards rated as hard (25-50% difficulty)';
 COMMENT ON COLUMN account.hardest_card IS 'Count of cards rated as hardest (0-25% difficulty)';
@@ -0,0 +1,102 @@
+package bot.telegram.flashcards.benchmark;
+
+import bot.telegram.flashcards.cache.FlashcardContentCache;
+import bot.telegram.flashcards.cache.PackageCardIndex;
+import bot.telegram.flashcards.cache.PackageCatalogCache;
+import bot.telegram.flashcards.models.Flashcard;
+import bot.telegram.flashcards.models.FlashcardPackage;
+import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.repository.FlashcardPackageRepository;
+import bot.telegram.flashcards.repository.FlashcardRepository;
+import bot.telegram.flashcards.repository.UserRepository;
+import bot.telegram.flashcards.service.EducationService;
+import bot.telegram.flashcards.service.FlashcardService;
+import bot.telegram.flashcards.service.ShowAllPackagesService;
+import bot.telegram.flashcards.service.UserService;
+import bot.telegram.flashcards.service.session.StudySessionCheckpointWriter;
+import bot.telegram.flashcards.service.session.StudySessionEngine;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring context of the database-backed benchmarks: the services of the bot over an in-memory H2 database,
+ * without the Telegram bot, so no request leaves the JVM.
+ * Session checkpoints are effectively disabled, so the measured paths are the ones the user waits for.
+ */
+@Configuration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = User.class)
+@EnableJpaRepositories(basePackageClasses = UserRepository.class)
+@Import({UserService.class, FlashcardService.class, ShowAllPackagesService.class, EducationService.class,
+        StudySessionEngine.class, StudySessionCheckpointWriter.class,
+        PackageCatalogCache.class, PackageCardIndex.class, FlashcardContentCache.class})
+class BenchmarkApplication {
+    static final long CHAT_ID = 42L;
+    static final int MESSAGE_ID = 1;
+    static final int PACKAGE_COUNT = 50;
+
+    /**
+     * Starts the context and fills the database with {@link #PACKAGE_COUNT} packages.
+     *
+     * @param cardsPerPackage the number of cards of the package under test
+     * @return the context and the ID of the package under test
+     */
+    static Fixture start(int cardsPerPackage) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties("spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "bot.session.checkpoint-interval=1h",
+                        "logging.level.root=WARN")
+                .run();
+
+        User owner = context.getBean(UserRepository.class).save(User.builder().id(CHAT_ID).build());
+        long packageId = 0;
+        for (int p = 0; p < PACKAGE_COUNT; p++) {
+            // the package under test is the last one, the others give the catalog a realistic size
+            packageId = createPackage(context, owner, p, p == PACKAGE_COUNT - 1 ? cardsPerPackage : 10);
+        }
+        return new Fixture(context, packageId);
+    }
+
+    private static long createPackage(ConfigurableApplicationContext context, User owner, int number, int cards) {
+        FlashcardPackage flashcardPackage = new FlashcardPackage();
+        flashcardPackage.setTitle("Package " + number);
+        flashcardPackage.setDescription("Description of package " + number);
+        flashcardPackage.setUser(owner);
+        flashcardPackage = context.getBean(FlashcardPackageRepository.class).save(flashcardPackage);
+
+        List<Flashcard> flashcards = new ArrayList<>(cards);
+        for (int c = 0; c < cards; c++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setFlashcardPackage(flashcardPackage);
+            flashcard.setQuestion("What is the meaning of term number " + c + " of package " + number + "?");
+            flashcard.setAnswer("The answer to question " + c + ", a sentence or two long, as on a typical card.");
+            flashcards.add(flashcard);
+        }
+        context.getBean(FlashcardRepository.class).saveAll(flashcards);
+        return flashcardPackage.getId();
+    }
+
+    /**
+     * @param context the started context; closing it drops the database
+     * @param packageId the ID of the package with the requested number of cards
+     */
+    record Fixture(ConfigurableApplicationContext context, long packageId) {
+        <T> T getBean(Class<T> type) {
+            return context.getBean(type);
+        }
+    }
+}
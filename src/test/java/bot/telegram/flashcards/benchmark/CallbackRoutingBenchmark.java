@@ -0,0 +1,75 @@
+package bot.telegram.flashcards.benchmark;
+
+import bot.telegram.flashcards.controller.CallbackRouter;
+import bot.telegram.flashcards.misc.CallbackData;
+import bot.telegram.flashcards.misc.CallbackOpcode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of routing a callback query: decoding its data and finding the handler of the button.
+ * The router registers every opcode, as {@code MainController} does, and the queries cycle through all
+ * buttons with realistic package and card IDs, so the trie walk and the argument parsing are both exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallbackRoutingBenchmark {
+    private CallbackRouter callbackRouter;
+    private CallbackQuery[] callbackQueries;
+    private String[] callbackData;
+    private int next;
+    private long sink;
+
+    @Setup
+    public void setUp() {
+        callbackRouter = new CallbackRouter();
+        for (CallbackOpcode opcode : CallbackOpcode.values()) {
+            callbackRouter.on(opcode, (callbackQuery, data) -> sink += data.first() + data.second());
+        }
+
+        CallbackOpcode[] opcodes = CallbackOpcode.values();
+        callbackQueries = new CallbackQuery[opcodes.length];
+        callbackData = new String[opcodes.length];
+        for (int i = 0; i < opcodes.length; i++) {
+            callbackData[i] = opcodes[i].encode(1_000_000L + i, 9_999);
+            callbackQueries[i] = new CallbackQuery();
+            callbackQueries[i].setData(callbackData[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean route() {
+        CallbackQuery callbackQuery = callbackQueries[next];
+        next = next + 1 == callbackQueries.length ? 0 : next + 1;
+        return callbackRouter.route(callbackQuery);
+    }
+
+    @Benchmark
+    public CallbackData decode() {
+        String data = callbackData[next];
+        next = next + 1 == callbackData.length ? 0 : next + 1;
+        return CallbackData.decode(data);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (sink == 0) {
+            throw new IllegalStateException("No callback was routed");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CallbackRoutingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
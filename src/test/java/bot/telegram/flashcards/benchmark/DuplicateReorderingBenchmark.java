@@ -0,0 +1,91 @@
+package bot.telegram.flashcards.benchmark;
+
+import bot.telegram.flashcards.cache.PackageCardIndex;
+import bot.telegram.flashcards.service.EducationService;
+import bot.telegram.flashcards.service.UserService;
+import bot.telegram.flashcards.service.session.StudySession;
+import bot.telegram.flashcards.service.session.StudySessionEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static bot.telegram.flashcards.benchmark.BenchmarkApplication.CHAT_ID;
+import static bot.telegram.flashcards.benchmark.BenchmarkApplication.MESSAGE_ID;
+
+/**
+ * Cost of reordering the learning queue when a card is rated as hard.
+ * {@code duplicateFlashcard} is the whole click, with the card status kept in the database;
+ * {@code walkSession} is the queue alone: every fourth card is duplicated twice, spaced as
+ * {@code EducationService.duplicateFlashcard} spaces them, and the session is restarted when exhausted.
+ * A new session is started for every iteration, so duplicates do not pile up across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DuplicateReorderingBenchmark {
+    private static final int HARDEST_DUPLICATES = 2;
+
+    @Param({"10", "500", "10000"})
+    private int cardsPerPackage;
+
+    private BenchmarkApplication.Fixture fixture;
+    private UserService userService;
+    private EducationService educationService;
+    private StudySessionEngine studySessionEngine;
+    private long[] cardIds;
+    private StudySession session;
+    private int shown;
+
+    @Setup
+    public void setUp() {
+        fixture = BenchmarkApplication.start(cardsPerPackage);
+        userService = fixture.getBean(UserService.class);
+        educationService = fixture.getBean(EducationService.class);
+        studySessionEngine = fixture.getBean(StudySessionEngine.class);
+        cardIds = fixture.getBean(PackageCardIndex.class).getCardIds(fixture.packageId());
+    }
+
+    @Setup(Level.Iteration)
+    public void startSession() {
+        userService.runInUnitOfWork(
+                () -> educationService.generateFlashcardList(fixture.packageId(), CHAT_ID, MESSAGE_ID));
+        session = studySessionEngine.findSession(CHAT_ID);
+    }
+
+    @Benchmark
+    public void duplicateFlashcard() {
+        userService.runInUnitOfWork(() -> educationService.duplicateFlashcard(CHAT_ID, HARDEST_DUPLICATES));
+    }
+
+    @Benchmark
+    public long walkSession() {
+        if (++shown % 4 == 0) {
+            int position = session.getEducationPosition();
+            long step = (long) ((session.getEducationSize() - position) * (1.0 / (HARDEST_DUPLICATES + 1))) + 1;
+            for (int i = 0; i < HARDEST_DUPLICATES; i++) {
+                session.insertEducationCard((int) (step * (i + 1)));
+            }
+        }
+        if (!session.advanceEducation()) {
+            session = studySessionEngine.start(CHAT_ID, fixture.packageId(), cardIds, shown);
+        }
+        return session.getCurrentEducationCard();
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.context().close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DuplicateReorderingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
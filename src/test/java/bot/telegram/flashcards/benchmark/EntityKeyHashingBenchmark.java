@@ -0,0 +1,126 @@
+package bot.telegram.flashcards.benchmark;
+
+import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.models.temporary.FlashcardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing and comparing the key of a {@code FlashcardStatus}, as done by every {@code findById}
+ * and by the persistence context.
+ * The legacy classes reproduce the former mapping: {@code @Data} entities whose key embeds the whole user,
+ * so hashing walks every package of the user and every card of each package.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityKeyHashingBenchmark {
+    private static final int PACKAGES_PER_USER = 3;
+
+    @Param({"10", "500", "10000"})
+    private int cardsPerPackage;
+
+    private LegacyStatusPK legacyKey;
+    private LegacyStatusPK equalLegacyKey;
+    private FlashcardStatus.FlashcardStatusPK key;
+    private FlashcardStatus.FlashcardStatusPK equalKey;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        legacyKey = createLegacyKey();
+        equalLegacyKey = createLegacyKey();
+        key = new FlashcardStatus.FlashcardStatusPK(42L, 7L);
+        equalKey = new FlashcardStatus.FlashcardStatusPK(42L, 7L);
+        user = User.builder().id(42L).build();
+    }
+
+    @Benchmark
+    public int legacyKeyHashCode() {
+        return legacyKey.hashCode();
+    }
+
+    @Benchmark
+    public boolean legacyKeyEquals() {
+        return legacyKey.equals(equalLegacyKey);
+    }
+
+    @Benchmark
+    public int keyHashCode() {
+        return key.hashCode();
+    }
+
+    @Benchmark
+    public boolean keyEquals() {
+        return key.equals(equalKey);
+    }
+
+    @Benchmark
+    public int userHashCode() {
+        return user.hashCode();
+    }
+
+    private LegacyStatusPK createLegacyKey() {
+        List<LegacyPackage> packages = new ArrayList<>();
+        for (int p = 0; p < PACKAGES_PER_USER; p++) {
+            List<LegacyCard> cards = new ArrayList<>();
+            for (int c = 0; c < cardsPerPackage; c++) {
+                cards.add(new LegacyCard(p * 100_000L + c, "Question " + c, "Answer " + c));
+            }
+            packages.add(new LegacyPackage(p, "Package " + p, "Description of package " + p, cards));
+        }
+        LegacyUser legacyUser = new LegacyUser(42L, 3L, 0L, 0L, packages);
+        return new LegacyStatusPK(legacyUser, packages.get(0).getFlashcardList().get(0));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EntityKeyHashingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class LegacyUser {
+        private long id;
+        private Long currentFlashcard;
+        private Long hardCard;
+        private Long hardestCard;
+        private List<LegacyPackage> flashcardPackageList;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class LegacyPackage {
+        private long id;
+        private String title;
+        private String description;
+        private List<LegacyCard> flashcardList;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class LegacyCard {
+        private long id;
+        private String question;
+        private String answer;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class LegacyStatusPK {
+        private LegacyUser user;
+        private LegacyCard flashcard;
+    }
+}
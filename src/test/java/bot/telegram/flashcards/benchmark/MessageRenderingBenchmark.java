@@ -0,0 +1,80 @@
+package bot.telegram.flashcards.benchmark;
+
+import bot.telegram.flashcards.service.EducationService;
+import bot.telegram.flashcards.service.ShowAllPackagesService;
+import bot.telegram.flashcards.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+
+import java.util.concurrent.TimeUnit;
+
+import static bot.telegram.flashcards.benchmark.BenchmarkApplication.CHAT_ID;
+import static bot.telegram.flashcards.benchmark.BenchmarkApplication.MESSAGE_ID;
+
+/**
+ * Cost of building the reply to a click, database access included, for packages of typical sizes.
+ * Caches are warm, as they are for every click but the first one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageRenderingBenchmark {
+    @Param({"10", "500", "10000"})
+    private int cardsPerPackage;
+
+    private BenchmarkApplication.Fixture fixture;
+    private ShowAllPackagesService showAllPackagesService;
+    private EducationService educationService;
+    private long packageId;
+    private int cardIndex;
+
+    @Setup
+    public void setUp() {
+        fixture = BenchmarkApplication.start(cardsPerPackage);
+        showAllPackagesService = fixture.getBean(ShowAllPackagesService.class);
+        educationService = fixture.getBean(EducationService.class);
+        packageId = fixture.packageId();
+
+        fixture.getBean(UserService.class).runInUnitOfWork(
+                () -> educationService.generateFlashcardList(packageId, CHAT_ID, MESSAGE_ID));
+    }
+
+    @Benchmark
+    public SendMessage showAllPackages() {
+        return showAllPackagesService.getAllPackages(CHAT_ID);
+    }
+
+    @Benchmark
+    public EditMessageText showPackage() {
+        return showAllPackagesService.showPackage(packageId, MESSAGE_ID, CHAT_ID);
+    }
+
+    @Benchmark
+    public EditMessageText browseCard() {
+        cardIndex = cardIndex + 1 == cardsPerPackage ? 0 : cardIndex + 1;
+        return showAllPackagesService.getPreviousOrNextCard(packageId, cardIndex, MESSAGE_ID, CHAT_ID);
+    }
+
+    @Benchmark
+    public EditMessageText showAnswer() {
+        return educationService.changeMsgToMsgWithShownAnswer(CHAT_ID, MESSAGE_ID);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.context().close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MessageRenderingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package bot.telegram.flashcards.cache;
+
+import bot.telegram.flashcards.repository.FlashcardContent;
+import bot.telegram.flashcards.repository.FlashcardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for FlashcardContentCache
+ * Tests loading, invalidation and the size bound of the cache
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FlashcardContentCache Tests")
+class FlashcardContentCacheTest {
+
+    @Mock
+    private FlashcardRepository flashcardRepository;
+
+    @Test
+    @DisplayName("Should load a card once and count the second request as a hit")
+    void testGet_Twice_LoadsOnce() {
+        // Given
+        FlashcardContentCache cache = new FlashcardContentCache(flashcardRepository, DataSize.ofMegabytes(1));
+        when(flashcardRepository.findContentById(1L)).thenReturn(Optional.of(new FlashcardContent(1, "Q", "A")));
+
+        // When
+        cache.get(1);
+        FlashcardContent result = cache.get(1);
+
+        // Then
+        assertThat(result.question()).isEqualTo("Q");
+        assertThat(cache.getStats().hitCount()).isEqualTo(1);
+        verify(flashcardRepository, times(1)).findContentById(1L);
+    }
+
+    @Test
+    @DisplayName("Should export hits and misses of the cache to the registry")
+    void testBindTo_ExportsHitsAndMisses() {
+        // Given
+        FlashcardContentCache cache = new FlashcardContentCache(flashcardRepository, DataSize.ofMegabytes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        when(flashcardRepository.findContentById(1L)).thenReturn(Optional.of(new FlashcardContent(1, "Q", "A")));
+        cache.bindTo(registry);
+
+        // When
+        cache.get(1);
+        cache.get(1);
+
+        // Then
+        assertThat(registry.get("cache.gets").tag("cache", "flashcard-content").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", "flashcard-content").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should load a card again after it was invalidated")
+    void testInvalidate_LoadsCardAgain() {
+        // Given
+        FlashcardContentCache cache = new FlashcardContentCache(flashcardRepository, DataSize.ofMegabytes(1));
+        when(flashcardRepository.findContentById(1L)).thenReturn(Optional.of(new FlashcardContent(1, "Q", "A")));
+        cache.get(1);
+
+        // When
+        cache.invalidate(1);
+        cache.get(1);
+
+        // Then
+        verify(flashcardRepository, times(2)).findContentById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache a missing card")
+    void testGet_MissingCard_ReturnsNull() {
+        // Given
+        FlashcardContentCache cache = new FlashcardContentCache(flashcardRepository, DataSize.ofMegabytes(1));
+        when(flashcardRepository.findContentById(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(1)).isNull();
+        verify(flashcardRepository, times(2)).findContentById(1L);
+    }
+
+    @Test
+    @DisplayName("Should keep the estimated size of the cached text within the bound")
+    void testGet_ManyLargeCards_EvictsBeyondMaxSize() {
+        // Given
+        String text = "x".repeat(1_000);
+        DataSize maxSize = DataSize.ofKilobytes(64);
+        FlashcardContentCache cache = new FlashcardContentCache(flashcardRepository, maxSize);
+        when(flashcardRepository.findContentById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(new FlashcardContent(invocation.getArgument(0), text, text)));
+
+        // When
+        for (long id = 0; id < 1_000; id++) {
+            cache.get(id);
+        }
+        cache.cleanUp();
+
+        // Then
+        assertThat(cache.getWeightedSize()).isLessThanOrEqualTo(maxSize.toBytes());
+        assertThat(cache.getStats().evictionCount()).isPositive();
+    }
+}
@@ -0,0 +1,98 @@
+package bot.telegram.flashcards.cache;
+
+import bot.telegram.flashcards.misc.CallbackOpcode;
+import bot.telegram.flashcards.repository.FlashcardPackageRepository;
+import bot.telegram.flashcards.repository.PackageSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for PackageCatalogCache
+ * Tests keyset paging of the catalog and its invalidation
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PackageCatalogCache Tests")
+class PackageCatalogCacheTest {
+
+    @Mock
+    private FlashcardPackageRepository flashcardPackageRepository;
+
+    private PackageCatalogCache packageCatalogCache;
+
+    @BeforeEach
+    void setUp() {
+        packageCatalogCache = new PackageCatalogCache(flashcardPackageRepository, 2, Duration.ofMinutes(5));
+        when(flashcardPackageRepository.findAllSummaries()).thenReturn(List.of(
+                new PackageSummary(10, "A", 1),
+                new PackageSummary(20, "B", 2),
+                new PackageSummary(30, "C", 3),
+                new PackageSummary(40, "D", 4),
+                new PackageSummary(50, "E", 5)));
+    }
+
+    @Test
+    @DisplayName("Should show the first packages with a Next button to the following page")
+    void testGetFirstPage_ReturnsFirstPackagesWithNextButton() {
+        // When
+        InlineKeyboardMarkup page = packageCatalogCache.getFirstPage();
+
+        // Then
+        assertThat(texts(page)).containsExactly(List.of("A"), List.of("B"), List.of("Next"));
+        assertThat(page.getKeyboard().get(2).get(0).getCallbackData())
+                .isEqualTo(CallbackOpcode.PACKAGES_PAGE.encode(30));
+    }
+
+    @Test
+    @DisplayName("Should open the page that starts with the given package")
+    void testGetPage_WithFirstPackageId_ReturnsThatPage() {
+        // When
+        InlineKeyboardMarkup page = packageCatalogCache.getPage(30);
+
+        // Then
+        assertThat(texts(page)).containsExactly(List.of("C"), List.of("D"), List.of("Previous", "Next"));
+        assertThat(page.getKeyboard().get(2).get(0).getCallbackData())
+                .isEqualTo(CallbackOpcode.PACKAGES_PAGE.encode(10));
+    }
+
+    @Test
+    @DisplayName("Should open the page where a removed package would be")
+    void testGetPage_WithUnknownPackageId_ReturnsNearestPage() {
+        // When & Then
+        assertThat(texts(packageCatalogCache.getPage(35))).containsExactly(List.of("C"), List.of("D"), List.of("Previous", "Next"));
+        assertThat(texts(packageCatalogCache.getPage(999))).containsExactly(List.of("E"), List.of("Previous"));
+    }
+
+    @Test
+    @DisplayName("Should load the catalog once until it is invalidated")
+    void testInvalidate_ReloadsCatalogOnNextRequest() {
+        // Given
+        packageCatalogCache.getFirstPage();
+        packageCatalogCache.getPage(30);
+        assertThat(packageCatalogCache.getSummary(20).cardCount()).isEqualTo(2);
+
+        // When
+        packageCatalogCache.invalidate();
+        packageCatalogCache.getFirstPage();
+
+        // Then
+        verify(flashcardPackageRepository, times(2)).findAllSummaries();
+    }
+
+    private static List<List<String>> texts(InlineKeyboardMarkup page) {
+        return page.getKeyboard().stream()
+                .map(row -> row.stream().map(InlineKeyboardButton::getText).toList())
+                .toList();
+    }
+}
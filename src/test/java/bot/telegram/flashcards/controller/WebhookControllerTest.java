@@ -0,0 +1,153 @@
+package bot.telegram.flashcards.controller;
+
+import bot.telegram.flashcards.config.BotConfig;
+import bot.telegram.flashcards.dispatch.WebhookIntake;
+import bot.telegram.flashcards.metrics.BotMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for WebhookController
+ * Tests intake of recorded Telegram updates, shedding and secret token checks
+ */
+@DisplayName("WebhookController Tests")
+class WebhookControllerTest {
+    private static final String SECRET = "secret";
+
+    private static final String MESSAGE_UPDATE = """
+            {
+              "update_id": 100,
+              "message": {
+                "message_id": 1,
+                "from": {"id": 42, "is_bot": false, "first_name": "Alice", "username": "alice"},
+                "chat": {"id": 42, "type": "private", "first_name": "Alice", "username": "alice"},
+                "date": 1700000000,
+                "text": "/start",
+                "entities": [{"offset": 0, "length": 6, "type": "bot_command"}]
+              }
+            }
+            """;
+
+    private static final String CALLBACK_QUERY_UPDATE = """
+            {
+              "update_id": 101,
+              "callback_query": {
+                "id": "4382bfdwdsb323b2d9",
+                "from": {"id": 42, "is_bot": false, "first_name": "Alice"},
+                "message": {
+                  "message_id": 2,
+                  "chat": {"id": 42, "type": "private", "first_name": "Alice"},
+                  "date": 1700000001,
+                  "text": "Question"
+                },
+                "chat_instance": "-8214652360271230445",
+                "data": "SHOW_ANSWER_CLICKED"
+              }
+            }
+            """;
+
+    private WebhookIntake webhookIntake;
+
+    @AfterEach
+    void tearDown() {
+        webhookIntake.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should answer 200 and hand recorded updates over in order")
+    void testOnUpdateReceived_RecordedUpdates_AreHandedOver() throws Exception {
+        // Given
+        MockMvc mockMvc = createMockMvc(10);
+        BlockingQueue<Update> received = new LinkedBlockingQueue<>();
+        webhookIntake.start(received::add);
+
+        // When
+        postUpdate(mockMvc, MESSAGE_UPDATE, SECRET).andExpect(status().isOk());
+        postUpdate(mockMvc, CALLBACK_QUERY_UPDATE, SECRET).andExpect(status().isOk());
+
+        // Then
+        Update message = received.poll(5, TimeUnit.SECONDS);
+        Update callbackQuery = received.poll(5, TimeUnit.SECONDS);
+        assertThat(message).isNotNull();
+        assertThat(message.getUpdateId()).isEqualTo(100);
+        assertThat(message.getMessage().getChatId()).isEqualTo(42L);
+        assertThat(message.getMessage().getText()).isEqualTo("/start");
+        assertThat(callbackQuery).isNotNull();
+        assertThat(callbackQuery.getUpdateId()).isEqualTo(101);
+        assertThat(callbackQuery.getCallbackQuery().getData()).isEqualTo("SHOW_ANSWER_CLICKED");
+        assertThat(callbackQuery.getCallbackQuery().getMessage().getChatId()).isEqualTo(42L);
+    }
+
+    @Test
+    @DisplayName("Should answer 200 before the update is processed")
+    void testOnUpdateReceived_NotStarted_QueuesUpdate() throws Exception {
+        // Given
+        MockMvc mockMvc = createMockMvc(10);
+
+        // When
+        postUpdate(mockMvc, MESSAGE_UPDATE, SECRET).andExpect(status().isOk());
+
+        // Then
+        assertThat(webhookIntake.getQueuedUpdates()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should shed updates when the queue is full and still answer 200")
+    void testOnUpdateReceived_FullQueue_ShedsUpdate() throws Exception {
+        // Given
+        MockMvc mockMvc = createMockMvc(1);
+        postUpdate(mockMvc, MESSAGE_UPDATE, SECRET).andExpect(status().isOk());
+
+        // When
+        postUpdate(mockMvc, CALLBACK_QUERY_UPDATE, SECRET).andExpect(status().isOk());
+
+        // Then
+        assertThat(webhookIntake.getQueuedUpdates()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject updates without the secret token")
+    void testOnUpdateReceived_WrongSecret_Returns401() throws Exception {
+        // Given
+        MockMvc mockMvc = createMockMvc(10);
+
+        // When
+        postUpdate(mockMvc, MESSAGE_UPDATE, "wrong").andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/webhook").contentType(MediaType.APPLICATION_JSON).content(MESSAGE_UPDATE))
+                .andExpect(status().isUnauthorized());
+
+        // Then
+        assertThat(webhookIntake.getQueuedUpdates()).isZero();
+    }
+
+    private MockMvc createMockMvc(int capacity) {
+        BotConfig config = new BotConfig();
+        config.setWebhookSecret(SECRET);
+        webhookIntake = new WebhookIntake(capacity, BotMetrics.disabled());
+        return MockMvcBuilders.standaloneSetup(new WebhookController(config, webhookIntake))
+                .addPlaceholderValue("bot.webhook.path", "/webhook")
+                .build();
+    }
+
+    private static ResultActions postUpdate(MockMvc mockMvc, String json, String secret)
+            throws Exception {
+        return mockMvc.perform(post("/webhook")
+                .header(WebhookController.SECRET_TOKEN_HEADER, secret)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json));
+    }
+}
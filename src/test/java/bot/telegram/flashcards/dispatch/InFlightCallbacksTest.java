@@ -0,0 +1,88 @@
+package bot.telegram.flashcards.dispatch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for InFlightCallbacks
+ * Tests dropping of repeated clicks while the first one is in flight
+ */
+@DisplayName("InFlightCallbacks Tests")
+class InFlightCallbacksTest {
+
+    private final InFlightCallbacks inFlightCallbacks = new InFlightCallbacks();
+
+    @Test
+    @DisplayName("Should drop a repeated click while the first one is in flight")
+    void testTryAcquire_SameButtonInFlight_ReturnsFalse() {
+        // Given
+        assertThat(inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 10, "SHOW_ANSWER_CLICKED"))).isTrue();
+
+        // When
+        boolean accepted = inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 10, "SHOW_ANSWER_CLICKED"));
+
+        // Then
+        assertThat(accepted).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should accept the same button again once the first click is processed")
+    void testTryAcquire_AfterRelease_ReturnsTrue() {
+        // Given
+        CallbackQuery first = createCallbackQuery(1L, 10, "SHOW_ANSWER_CLICKED");
+        inFlightCallbacks.tryAcquire(first);
+        inFlightCallbacks.release(first);
+
+        // When
+        boolean accepted = inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 10, "SHOW_ANSWER_CLICKED"));
+
+        // Then
+        assertThat(accepted).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should accept other buttons, other messages and other chats")
+    void testTryAcquire_DifferentButton_ReturnsTrue() {
+        // Given
+        inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 10, "SHOW_ANSWER_CLICKED"));
+
+        // When & Then
+        assertThat(inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 10, "0%_BUTTON_CLICKED"))).isTrue();
+        assertThat(inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 11, "0%_BUTTON_CLICKED"))).isTrue();
+        assertThat(inFlightCallbacks.tryAcquire(createCallbackQuery(2L, 11, "0%_BUTTON_CLICKED"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep the latest click when an older one is released")
+    void testRelease_OlderClick_KeepsLatestInFlight() {
+        // Given
+        CallbackQuery older = createCallbackQuery(1L, 10, "SHOW_ANSWER_CLICKED");
+        inFlightCallbacks.tryAcquire(older);
+        inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 10, "0%_BUTTON_CLICKED"));
+
+        // When
+        inFlightCallbacks.release(older);
+
+        // Then
+        assertThat(inFlightCallbacks.tryAcquire(createCallbackQuery(1L, 10, "0%_BUTTON_CLICKED"))).isFalse();
+    }
+
+    private static CallbackQuery createCallbackQuery(long chatId, int messageId, String data) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        Message message = new Message();
+        message.setChat(chat);
+        message.setMessageId(messageId);
+        message.setDate(1);
+
+        CallbackQuery callbackQuery = new CallbackQuery();
+        callbackQuery.setMessage(message);
+        callbackQuery.setData(data);
+        return callbackQuery;
+    }
+}
@@ -0,0 +1,69 @@
+package bot.telegram.flashcards.dispatch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for LaneGate
+ * Tests weighted hand-out of processing slots between lanes
+ */
+@DisplayName("LaneGate Tests")
+class LaneGateTest {
+
+    @Test
+    @DisplayName("Should take a free slot without waiting")
+    void testAcquire_FreeSlot_ReturnsImmediately() {
+        // Given
+        LaneGate gate = new LaneGate(2);
+
+        // When
+        gate.acquire(UpdateLane.BROWSING);
+        gate.acquire(UpdateLane.BROWSING);
+
+        // Then
+        assertThat(gate.getWaiting()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hand freed slots to study first without starving browsing")
+    void testRelease_WaitingLanes_FollowsWeights() throws InterruptedException {
+        // Given
+        LaneGate gate = new LaneGate(1);
+        gate.acquire(UpdateLane.COMMAND);
+        List<UpdateLane> granted = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(6);
+        for (UpdateLane lane : List.of(UpdateLane.BROWSING, UpdateLane.BROWSING, UpdateLane.BROWSING,
+                UpdateLane.STUDY, UpdateLane.STUDY, UpdateLane.STUDY)) {
+            Thread.ofVirtual().start(() -> {
+                gate.acquire(lane);
+                granted.add(lane);
+                done.countDown();
+                gate.release();
+            });
+        }
+        awaitWaiting(gate, 6);
+
+        // When
+        gate.release();
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(granted).containsExactly(UpdateLane.STUDY, UpdateLane.BROWSING, UpdateLane.STUDY,
+                UpdateLane.STUDY, UpdateLane.BROWSING, UpdateLane.BROWSING);
+    }
+
+    private static void awaitWaiting(LaneGate gate, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gate.getWaiting() < waiting && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(gate.getWaiting()).isEqualTo(waiting);
+    }
+}
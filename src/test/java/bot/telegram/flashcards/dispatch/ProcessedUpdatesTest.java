@@ -0,0 +1,178 @@
+package bot.telegram.flashcards.dispatch;
+
+import bot.telegram.flashcards.config.BotConfig;
+import bot.telegram.flashcards.models.UpdateOffset;
+import bot.telegram.flashcards.repository.UpdateOffsetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for ProcessedUpdates
+ * Tests rejection of replayed updates and checkpointing of the processed offset
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProcessedUpdates Tests")
+class ProcessedUpdatesTest {
+    private static final String BOT_NAME = "flashcards_bot";
+
+    @Mock
+    private UpdateOffsetRepository updateOffsetRepository;
+
+    private ProcessedUpdates processedUpdates;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (processedUpdates != null) {
+            processedUpdates.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject an update received before, even after it was processed")
+    void testTryAcquire_SameUpdate_ReturnsFalse() {
+        // Given
+        processedUpdates = createProcessedUpdates();
+        Update update = createUpdate(100);
+        assertThat(processedUpdates.tryAcquire(update)).isTrue();
+        processedUpdates.release(update);
+
+        // When
+        boolean accepted = processedUpdates.tryAcquire(createUpdate(100));
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(processedUpdates.tryAcquire(createUpdate(101))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep the offset at the oldest update still in flight")
+    void testGetOffset_UpdatesInFlight_ReturnsOldest() {
+        // Given
+        processedUpdates = createProcessedUpdates();
+        Update first = createUpdate(100);
+        Update second = createUpdate(101);
+        processedUpdates.tryAcquire(first);
+        processedUpdates.tryAcquire(second);
+
+        // When
+        processedUpdates.release(second);
+        int offsetWhileFirstInFlight = processedUpdates.getOffset();
+        processedUpdates.release(first);
+
+        // Then
+        assertThat(offsetWhileFirstInFlight).isEqualTo(100);
+        assertThat(processedUpdates.getOffset()).isEqualTo(102);
+    }
+
+    @Test
+    @DisplayName("Should save the offset only when it moved")
+    void testCheckpoint_OffsetMoved_SavesOnce() {
+        // Given
+        processedUpdates = createProcessedUpdates();
+        Update update = createUpdate(100);
+        processedUpdates.tryAcquire(update);
+        processedUpdates.release(update);
+
+        // When
+        processedUpdates.checkpoint();
+        processedUpdates.checkpoint();
+
+        // Then
+        ArgumentCaptor<UpdateOffset> captor = ArgumentCaptor.forClass(UpdateOffset.class);
+        verify(updateOffsetRepository, times(1)).save(captor.capture());
+        assertThat(captor.getValue().getBotName()).isEqualTo(BOT_NAME);
+        assertThat(captor.getValue().getNextUpdateId()).isEqualTo(101);
+    }
+
+    @Test
+    @DisplayName("Should reject updates below the restored offset after a restart")
+    void testTryAcquire_BelowRestoredOffset_ReturnsFalse() {
+        // Given
+        when(updateOffsetRepository.findById(BOT_NAME))
+                .thenReturn(Optional.of(new UpdateOffset(BOT_NAME, 100, LocalDateTime.now())));
+        processedUpdates = createProcessedUpdates();
+
+        // When
+        boolean processedBefore = processedUpdates.tryAcquire(createUpdate(99));
+        boolean notProcessedBefore = processedUpdates.tryAcquire(createUpdate(100));
+
+        // Then
+        assertThat(processedBefore).isFalse();
+        assertThat(notProcessedBefore).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep rejecting updates below the restored offset after a new update arrived")
+    void testTryAcquire_BelowRestoredOffsetAfterNewUpdate_ReturnsFalse() {
+        // Given
+        when(updateOffsetRepository.findById(BOT_NAME))
+                .thenReturn(Optional.of(new UpdateOffset(BOT_NAME, 100, LocalDateTime.now())));
+        processedUpdates = createProcessedUpdates();
+        processedUpdates.tryAcquire(createUpdate(100));
+
+        // When
+        boolean accepted = processedUpdates.tryAcquire(createUpdate(99));
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(processedUpdates.getRestoredOffset()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should not move the offset back when an older update is received late")
+    void testGetOffset_OlderUpdateReceivedLate_KeepsHighest() {
+        // Given
+        processedUpdates = createProcessedUpdates();
+        Update newer = createUpdate(101);
+        Update older = createUpdate(100);
+        processedUpdates.tryAcquire(newer);
+        processedUpdates.release(newer);
+
+        // When
+        processedUpdates.tryAcquire(older);
+        processedUpdates.release(older);
+
+        // Then
+        assertThat(processedUpdates.getOffset()).isEqualTo(102);
+    }
+
+    @Test
+    @DisplayName("Should ignore an offset saved too long ago")
+    void testTryAcquire_StaleRestoredOffset_ReturnsTrue() {
+        // Given
+        when(updateOffsetRepository.findById(BOT_NAME))
+                .thenReturn(Optional.of(new UpdateOffset(BOT_NAME, 100, LocalDateTime.now().minusDays(8))));
+        processedUpdates = createProcessedUpdates();
+
+        // When
+        boolean accepted = processedUpdates.tryAcquire(createUpdate(5));
+
+        // Then
+        assertThat(accepted).isTrue();
+    }
+
+    private ProcessedUpdates createProcessedUpdates() {
+        BotConfig config = new BotConfig();
+        config.setName(BOT_NAME);
+        return new ProcessedUpdates(updateOffsetRepository, config, 16, Duration.ofHours(1), Duration.ofDays(7));
+    }
+
+    private static Update createUpdate(int updateId) {
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        return update;
+    }
+}
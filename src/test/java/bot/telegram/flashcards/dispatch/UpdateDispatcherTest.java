@@ -0,0 +1,187 @@
+package bot.telegram.flashcards.dispatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for UpdateDispatcher
+ * Tests per-chat ordering, cross-chat parallelism and shedding of full lanes
+ */
+@DisplayName("UpdateDispatcher Tests")
+class UpdateDispatcherTest {
+
+    private final UpdateDispatcher updateDispatcher = new UpdateDispatcher();
+
+    @AfterEach
+    void tearDown() {
+        updateDispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should process updates of the same chat in arrival order")
+    void testDispatch_SameChat_KeepsOrder() throws InterruptedException {
+        // Given
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            updateDispatcher.dispatch(createUpdate(i, 1L), update -> {
+                processed.add(update.getUpdateId());
+                done.countDown();
+            });
+        }
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(processed).isSorted().hasSize(100);
+    }
+
+    @Test
+    @DisplayName("Should not block other chats while one chat is busy")
+    void testDispatch_SlowChat_DoesNotBlockOtherChats() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastChatDone = new CountDownLatch(1);
+
+        // When
+        updateDispatcher.dispatch(createUpdate(1, 1L), update -> awaitQuietly(release));
+        updateDispatcher.dispatch(createUpdate(2, 2L), update -> fastChatDone.countDown());
+
+        // Then
+        assertThat(fastChatDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(updateDispatcher.getChatLag(1L)).isPositive();
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should keep draining the mailbox after a handler fails")
+    void testDispatch_WhenHandlerThrows_ProcessesNextUpdate() throws InterruptedException {
+        // Given
+        CountDownLatch secondProcessed = new CountDownLatch(1);
+
+        // When
+        updateDispatcher.dispatch(createUpdate(1, 1L), update -> {
+            throw new IllegalStateException("Handler error");
+        });
+        updateDispatcher.dispatch(createUpdate(2, 1L), update -> secondProcessed.countDown());
+
+        // Then
+        assertThat(secondProcessed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should run an exclusive task after the update in flight and before the next one")
+    void testRunExclusively_ChatBusy_RunsBetweenUpdates() throws InterruptedException {
+        // Given
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        updateDispatcher.dispatch(createUpdate(1, 1L), update -> {
+            started.countDown();
+            awaitQuietly(release);
+            events.add("first");
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        Thread exclusive = Thread.startVirtualThread(() -> {
+            try {
+                updateDispatcher.runExclusively(List.of(1L, 2L), () -> events.add("exclusive"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // the idle chat 2 holds its barrier once both barriers are queued
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (updateDispatcher.getActiveChats() < 2 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        updateDispatcher.dispatch(createUpdate(2, 1L), update -> {
+            events.add("second");
+            done.countDown();
+        });
+        release.countDown();
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        exclusive.join(5000);
+        assertThat(events).containsExactly("first", "exclusive", "second");
+    }
+
+    @Test
+    @DisplayName("Should shed updates of a full lane while other lanes are still accepted")
+    void testDispatch_FullLane_ShedsUpdate() throws InterruptedException {
+        // Given
+        UpdateDispatcher limitedDispatcher = new UpdateDispatcher(1, 1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        limitedDispatcher.dispatch(createUpdate(1, 1L), update -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        boolean firstBrowsing = limitedDispatcher.dispatch(createCallbackUpdate(2, 2L, "SHOW_ALL_PACKAGES_1_SELECTED"), update -> { });
+        boolean secondBrowsing = limitedDispatcher.dispatch(createCallbackUpdate(3, 3L, "NEXT_CARD_1_OF_PACKAGE_2_CLICKED"), update -> { });
+        boolean study = limitedDispatcher.dispatch(createCallbackUpdate(4, 4L, "SHOW_ANSWER_CLICKED"), update -> { });
+
+        // Then
+        assertThat(firstBrowsing).isTrue();
+        assertThat(secondBrowsing).isFalse();
+        assertThat(study).isTrue();
+        assertThat(limitedDispatcher.getLaneDepth(UpdateLane.BROWSING)).isEqualTo(1);
+        assertThat(limitedDispatcher.getShedUpdates(UpdateLane.BROWSING)).isEqualTo(1);
+        assertThat(limitedDispatcher.getShedUpdates(UpdateLane.STUDY)).isZero();
+        release.countDown();
+        limitedDispatcher.shutdown();
+    }
+
+    private static Update createCallbackUpdate(int updateId, long chatId, String data) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        Message message = new Message();
+        message.setChat(chat);
+        CallbackQuery callbackQuery = new CallbackQuery();
+        callbackQuery.setMessage(message);
+        callbackQuery.setData(data);
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setCallbackQuery(callbackQuery);
+        return update;
+    }
+
+    private static Update createUpdate(int updateId, long chatId) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        Message message = new Message();
+        message.setChat(chat);
+        message.setText("/help");
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setMessage(message);
+        return update;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package bot.telegram.flashcards.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the Telegram Bot API, reached by the bot through {@code bot.api-url}.
+ * Implements the methods the bot calls: {@code getUpdates} as a long poll over the updates posted by
+ * the simulated users, {@code sendMessage} and {@code editMessageText}, which are handed to the
+ * {@link ReplyListener}, and {@code setMyCommands}; any other method succeeds without effect.
+ *
+ * Every update is handed out exactly once, so the offset sent by the bot is not needed:
+ * a local stub does not lose responses.
+ */
+class FakeTelegramApi implements AutoCloseable {
+    private static final int MAX_UPDATES = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final BlockingQueue<ObjectNode> updates = new LinkedBlockingQueue<>();
+    private final AtomicInteger nextUpdateId = new AtomicInteger(1);
+    private final AtomicInteger nextMessageId = new AtomicInteger(1);
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final LongAdder deliveredUpdates = new LongAdder();
+    private final ReplyListener replyListener;
+
+    /**
+     * Receives the messages the bot sends or edits.
+     */
+    interface ReplyListener {
+        /**
+         * @param chatId the chat of the message
+         * @param messageId the ID of the sent or edited message
+         * @param request the body of the API method
+         * @param receivedAt {@link System#nanoTime()} of the arrival of the request
+         */
+        void onReply(long chatId, int messageId, JsonNode request, long receivedAt);
+    }
+
+    FakeTelegramApi(ReplyListener replyListener) throws IOException {
+        this.replyListener = replyListener;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return the value of {@code bot.api-url} that points the bot to this stub
+     */
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    /**
+     * Posts a text message of a user, as if typed in the chat.
+     *
+     * @param chatId the private chat of the user
+     * @param text the text of the message
+     */
+    void postMessage(long chatId, String text) {
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("message_id", nextMessageId.getAndIncrement())
+                .put("date", now())
+                .put("text", text);
+        message.set("chat", chat(chatId));
+        message.set("from", user(chatId));
+        post("message", message);
+    }
+
+    /**
+     * Posts a click on an inline keyboard button.
+     *
+     * @param chatId the private chat of the user
+     * @param messageId the message carrying the keyboard
+     * @param callbackData the data of the clicked button
+     */
+    void postCallbackQuery(long chatId, int messageId, String callbackData) {
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("message_id", messageId)
+                .put("date", now());
+        message.set("chat", chat(chatId));
+
+        ObjectNode callbackQuery = objectMapper.createObjectNode()
+                .put("id", Long.toString(nextUpdateId.get()))
+                .put("chat_instance", Long.toString(chatId))
+                .put("data", callbackData);
+        callbackQuery.set("from", user(chatId));
+        callbackQuery.set("message", message);
+        post("callback_query", callbackQuery);
+    }
+
+    /**
+     * @return the number of updates fetched by the bot so far
+     */
+    long getDeliveredUpdates() {
+        return deliveredUpdates.sum();
+    }
+
+    /**
+     * @return the number of updates posted but not fetched yet
+     */
+    int getPendingUpdates() {
+        return updates.size();
+    }
+
+    /**
+     * @param method the name of an API method
+     * @return the number of calls of the method so far
+     */
+    long getCalls(String method) {
+        LongAdder counter = calls.get(method);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    private void post(String type, ObjectNode payload) {
+        ObjectNode update = objectMapper.createObjectNode().put("update_id", nextUpdateId.getAndIncrement());
+        update.set(type, payload);
+        updates.add(update);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long receivedAt = System.nanoTime();
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = path.substring(path.lastIndexOf('/') + 1);
+            calls.computeIfAbsent(method, name -> new LongAdder()).increment();
+
+            JsonNode request = readBody(exchange);
+            JsonNode result = switch (method) {
+                case "getUpdates" -> getUpdates(request);
+                case "sendMessage" -> reply(request, nextMessageId.getAndIncrement(), receivedAt);
+                case "editMessageText" -> reply(request, request.path("message_id").asInt(), receivedAt);
+                default -> objectMapper.getNodeFactory().booleanNode(true);
+            };
+
+            ObjectNode response = objectMapper.createObjectNode().put("ok", true);
+            response.set("result", result);
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            return body.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+        }
+    }
+
+    private ArrayNode getUpdates(JsonNode request) throws InterruptedException {
+        int limit = Math.min(request.path("limit").asInt(MAX_UPDATES), MAX_UPDATES);
+        if (limit <= 0) {
+            limit = MAX_UPDATES;
+        }
+        int timeout = request.path("timeout").asInt(0);
+
+        List<ObjectNode> batch = new ArrayList<>(limit);
+        ObjectNode first = updates.poll(timeout, TimeUnit.SECONDS);
+        if (first != null) {
+            batch.add(first);
+            updates.drainTo(batch, limit - 1);
+        }
+        deliveredUpdates.add(batch.size());
+
+        return objectMapper.createArrayNode().addAll(batch);
+    }
+
+    private ObjectNode reply(JsonNode request, int messageId, long receivedAt) {
+        long chatId = request.path("chat_id").asLong();
+        replyListener.onReply(chatId, messageId, request, receivedAt);
+
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("message_id", messageId)
+                .put("date", now())
+                .put("text", request.path("text").asText());
+        message.set("chat", chat(chatId));
+        return message;
+    }
+
+    private ObjectNode chat(long chatId) {
+        return objectMapper.createObjectNode()
+                .put("id", chatId)
+                .put("type", "private")
+                .put("first_name", "User" + chatId);
+    }
+
+    private ObjectNode user(long chatId) {
+        return objectMapper.createObjectNode()
+                .put("id", chatId)
+                .put("is_bot", false)
+                .put("first_name", "User" + chatId);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,86 @@
+package bot.telegram.flashcards.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in microseconds, with log-linear buckets:
+ * every power of two is split into {@value #SUB_BUCKETS} buckets, so a percentile is off by at most 1/32.
+ * Recording is a single atomic increment, cheap enough for hundreds of thousands of replies per second.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Latencies from 2^40 µs (about 12 days) on are recorded in the last bucket.
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+
+    /**
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1_000, 0), (1L << MAX_EXPONENT) - 1);
+        counts.incrementAndGet(indexOf(micros));
+    }
+
+    /**
+     * @return the number of recorded latencies
+     */
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the lower bound of the bucket holding the percentile in microseconds, 0 if nothing was recorded
+     */
+    long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBoundOf(i);
+            }
+        }
+        return lowerBoundOf(counts.length() - 1);
+    }
+
+    /**
+     * Forgets all recorded latencies, e.g. the ones of the warm-up.
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowerBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
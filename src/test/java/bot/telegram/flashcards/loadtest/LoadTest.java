@@ -0,0 +1,279 @@
+package bot.telegram.flashcards.loadtest;
+
+import bot.telegram.flashcards.TgFlashcardsBotApplication;
+import bot.telegram.flashcards.dispatch.UpdateDispatcher;
+import bot.telegram.flashcards.models.Flashcard;
+import bot.telegram.flashcards.models.FlashcardPackage;
+import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.outbound.OutboundMessageQueue;
+import bot.telegram.flashcards.repository.FlashcardPackageRepository;
+import bot.telegram.flashcards.repository.FlashcardRepository;
+import bot.telegram.flashcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load generator: runs the whole bot against {@link FakeTelegramApi} and drives it with
+ * populations of {@link SimulatedUser}s, one population after the other.
+ * For every population it reports the throughput in updates per second, the 50th and 99th percentile of
+ * the time from posting an update to receiving its reply, and the SQL statements per update, taken from
+ * the Hibernate statistics, so the asynchronous checkpoints of study sessions are included.
+ *
+ * The bot runs with an in-memory H2 database and with the outbound rate limits lifted, so the report is about
+ * the bot, not about the limits of Telegram. Any property can be overridden with a system property,
+ * e.g. {@code -Dspring.datasource.url=jdbc:postgresql://localhost:5432/flashcards_load} to measure PostgreSQL.
+ *
+ * Arguments (all optional): {@code --users=1000,10000,100000 --duration=60s --warmup=15s --think-time=1s
+ * --packages=20 --cards=30}.
+ */
+public class LoadTest {
+    private static final long OWNER_ID = 1L;
+    private static final long CHAT_IDS_PER_POPULATION = 1_000_000L;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final FakeTelegramApi api;
+    private final ScheduledExecutorService scheduler;
+    private final Duration thinkTime;
+    private volatile Population population;
+
+    private LoadTest(Duration thinkTime) throws Exception {
+        this.thinkTime = thinkTime;
+        this.api = new FakeTelegramApi(this::onReply);
+        this.scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(),
+                runnable -> new Thread(runnable, "simulated-users"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        long[] userCounts = Arrays.stream(options.getOrDefault("users", "1000,10000,100000").split(","))
+                .mapToLong(count -> Long.parseLong(count.trim()))
+                .toArray();
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "15s"));
+        Duration thinkTime = DurationStyle.detectAndParse(options.getOrDefault("think-time", "1s"));
+        int packages = Integer.parseInt(options.getOrDefault("packages", "20"));
+        int cards = Integer.parseInt(options.getOrDefault("cards", "30"));
+
+        LoadTest loadTest = new LoadTest(thinkTime);
+        ConfigurableApplicationContext context = loadTest.startBot();
+        try {
+            seed(context, packages, cards);
+            Statistics statistics = context.getBean(EntityManagerFactory.class)
+                    .unwrap(SessionFactory.class)
+                    .getStatistics();
+
+            System.out.printf("%nthink time %s, %d packages of %d cards, warm-up %s, measured %s%n",
+                    thinkTime, packages, cards, warmup, duration);
+            System.out.printf("%10s %12s %10s %10s %14s %10s %10s%n",
+                    "users", "updates/s", "p50 ms", "p99 ms", "stmts/update", "backlog", "unanswered");
+            for (int i = 0; i < userCounts.length; i++) {
+                Report report = loadTest.run(context, statistics, (i + 1) * CHAT_IDS_PER_POPULATION,
+                        (int) userCounts[i], warmup, duration);
+                System.out.printf("%10d %12.1f %10.1f %10.1f %14.2f %10d %10d%n",
+                        userCounts[i], report.throughput(), report.p50Millis(), report.p99Millis(),
+                        report.statementsPerUpdate(), report.backlog(), report.unanswered());
+            }
+        } finally {
+            context.close();
+            loadTest.api.close();
+            loadTest.scheduler.shutdownNow();
+        }
+        // the long polling session of the bot is not a daemon thread
+        System.exit(0);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private ConfigurableApplicationContext startBot() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("bot.name", "load_test_bot");
+        properties.put("bot.token", "0:load-test");
+        properties.put("bot.api-url", api.getBaseUrl());
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.generate_statistics", "true");
+        properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", "50");
+        properties.put("bot.outbound.global-rate", "1000000");
+        properties.put("bot.outbound.chat-burst", "1000");
+        properties.put("bot.outbound.chat-rate", "1000");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.bot.telegram.flashcards", "WARN");
+
+        // passed as arguments, so they win over an application.properties on the classpath,
+        // unless they are set as system properties
+        List<String> arguments = new ArrayList<>();
+        properties.forEach((name, value) -> arguments.add("--" + name + "=" + System.getProperty(name, value)));
+        return new SpringApplicationBuilder(TgFlashcardsBotApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int packages, int cards) {
+        User owner = context.getBean(UserRepository.class).save(User.builder().id(OWNER_ID).build());
+        for (int p = 0; p < packages; p++) {
+            FlashcardPackage flashcardPackage = new FlashcardPackage();
+            flashcardPackage.setTitle("Package " + p);
+            flashcardPackage.setDescription("Description of package " + p);
+            flashcardPackage.setUser(owner);
+            flashcardPackage = context.getBean(FlashcardPackageRepository.class).save(flashcardPackage);
+
+            List<Flashcard> flashcards = new ArrayList<>(cards);
+            for (int c = 0; c < cards; c++) {
+                Flashcard flashcard = new Flashcard();
+                flashcard.setFlashcardPackage(flashcardPackage);
+                flashcard.setQuestion("What is the meaning of term number " + c + " of package " + p + "?");
+                flashcard.setAnswer("The answer to question " + c + ", a sentence or two long, as on a typical card.");
+                flashcards.add(flashcard);
+            }
+            context.getBean(FlashcardRepository.class).saveAll(flashcards);
+        }
+    }
+
+    private Report run(ConfigurableApplicationContext context, Statistics statistics, long firstChatId, int users,
+                       Duration warmup, Duration duration) throws InterruptedException {
+        Population current = new Population(firstChatId, users);
+        population = current;
+        // the first steps are spread over one think time, so the population starts at its steady rate
+        for (SimulatedUser user : current.users) {
+            schedule(current, user, ThreadLocalRandom.current().nextLong(Math.max(1, thinkTime.toNanos())));
+        }
+
+        Thread.sleep(warmup.toMillis());
+        current.latencies.reset();
+        long updatesBefore = api.getDeliveredUpdates();
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long sentBefore = current.sent.sum();
+        long answeredBefore = current.answered.sum();
+        long startedAt = System.nanoTime();
+
+        Thread.sleep(duration.toMillis());
+        long elapsed = System.nanoTime() - startedAt;
+        long updates = api.getDeliveredUpdates() - updatesBefore;
+        long statements = statistics.getPrepareStatementCount() - statementsBefore;
+        long backlog = api.getPendingUpdates()
+                + context.getBean(UpdateDispatcher.class).getQueueDepth()
+                + context.getBean(OutboundMessageQueue.class).getPendingMessages();
+        long unanswered = (current.sent.sum() - sentBefore) - (current.answered.sum() - answeredBefore);
+        current.running = false;
+        drain(context);
+
+        return new Report(updates * 1e9 / elapsed,
+                current.latencies.getPercentile(50) / 1000.0,
+                current.latencies.getPercentile(99) / 1000.0,
+                updates == 0 ? 0 : (double) statements / updates,
+                backlog,
+                Math.max(unanswered, 0));
+    }
+
+    /**
+     * Waits until the bot has answered the last steps of the stopped population.
+     */
+    private void drain(ConfigurableApplicationContext context) throws InterruptedException {
+        UpdateDispatcher updateDispatcher = context.getBean(UpdateDispatcher.class);
+        OutboundMessageQueue outboundMessageQueue = context.getBean(OutboundMessageQueue.class);
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline && (api.getPendingUpdates() > 0
+                || updateDispatcher.getQueueDepth() > 0 || outboundMessageQueue.getPendingMessages() > 0)) {
+            Thread.sleep(100);
+        }
+    }
+
+    private void onReply(long chatId, int messageId, JsonNode request, long receivedAt) {
+        Population current = population;
+        SimulatedUser user = current == null ? null : current.find(chatId);
+        if (user == null) {
+            return;
+        }
+
+        long latency = user.onReply(messageId, request, receivedAt);
+        if (latency < 0) {
+            return;
+        }
+        current.latencies.record(latency);
+        current.answered.increment();
+        if (current.running) {
+            // think times vary between half and one and a half of the configured one
+            long nanos = thinkTime.toNanos();
+            schedule(current, user, nanos / 2 + ThreadLocalRandom.current().nextLong(Math.max(1, nanos)));
+        }
+    }
+
+    private void schedule(Population current, SimulatedUser user, long delayNanos) {
+        scheduler.schedule(() -> {
+            if (current.running) {
+                user.act(api);
+                current.sent.increment();
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Users of one run, with consecutive chat IDs.
+     */
+    private static class Population {
+        final long firstChatId;
+        final SimulatedUser[] users;
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final LongAdder sent = new LongAdder();
+        final LongAdder answered = new LongAdder();
+        volatile boolean running = true;
+
+        Population(long firstChatId, int size) {
+            this.firstChatId = firstChatId;
+            this.users = new SimulatedUser[size];
+            for (int i = 0; i < size; i++) {
+                users[i] = new SimulatedUser(firstChatId + i, firstChatId + i);
+            }
+        }
+
+        SimulatedUser find(long chatId) {
+            long index = chatId - firstChatId;
+            return index >= 0 && index < users.length ? users[(int) index] : null;
+        }
+    }
+
+    /**
+     * @param throughput updates fetched by the bot per second
+     * @param p50Millis median time from posting an update to its reply
+     * @param p99Millis 99th percentile of the same time
+     * @param statementsPerUpdate prepared SQL statements per fetched update
+     * @param backlog updates and replies still queued at the end of the run
+     * @param unanswered steps of the run without a reply at its end
+     */
+    private record Report(double throughput, double p50Millis, double p99Millis, double statementsPerUpdate,
+                          long backlog, long unanswered) {
+    }
+}
@@ -0,0 +1,117 @@
+package bot.telegram.flashcards.loadtest;
+
+import bot.telegram.flashcards.misc.CallbackData;
+import bot.telegram.flashcards.misc.CallbackOpcode;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A user that studies the way a person does: /start, /showallpackages, a package, and then
+ * "show answer" and a rating from 0% to 100% until the package is done, then another package.
+ * The user is closed-loop: the next step is taken after the reply to the previous one, so the
+ * offered load follows the number of users and their think time, not the speed of the bot.
+ *
+ * Every step but the first command expects a reply with an inline keyboard, and the next step is
+ * a click on one of its buttons; replies without a keyboard while a click is outstanding, like the guide
+ * sent after the welcome message, are not counted as the answer.
+ */
+class SimulatedUser {
+    private static final String START = "/start";
+    private static final String SHOW_ALL_PACKAGES = "/showallpackages";
+    private static final List<CallbackOpcode> ANSWERS = List.of(CallbackOpcode.ANSWER_0, CallbackOpcode.ANSWER_25,
+            CallbackOpcode.ANSWER_50, CallbackOpcode.ANSWER_75, CallbackOpcode.ANSWER_100);
+
+    private final long chatId;
+    private final Random random;
+
+    private String nextCommand = START;
+    private String nextCallbackData;
+    private int nextMessageId;
+    private long sentAt;
+    private boolean expectsKeyboard;
+
+    SimulatedUser(long chatId, long seed) {
+        this.chatId = chatId;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Posts the next step of the user: a command or a click on the last received keyboard.
+     *
+     * @param api the stub the bot polls
+     */
+    synchronized void act(FakeTelegramApi api) {
+        expectsKeyboard = nextCommand == null || !nextCommand.equals(START);
+        sentAt = System.nanoTime();
+        if (nextCommand != null) {
+            api.postMessage(chatId, nextCommand);
+        } else {
+            api.postCallbackQuery(chatId, nextMessageId, nextCallbackData);
+        }
+    }
+
+    /**
+     * Takes a message sent or edited by the bot as the answer to the outstanding step, if it is one,
+     * and picks the next step from its keyboard.
+     *
+     * @param messageId the ID of the message
+     * @param request the body of the API method
+     * @param receivedAt {@link System#nanoTime()} of the arrival of the message
+     * @return the latency of the step in nanoseconds, or -1 if the message does not answer a step
+     */
+    synchronized long onReply(int messageId, JsonNode request, long receivedAt) {
+        List<CallbackData> buttons = new ArrayList<>();
+        for (JsonNode row : request.path("reply_markup").path("inline_keyboard")) {
+            for (JsonNode button : row) {
+                CallbackData data = CallbackData.decode(button.path("callback_data").asText(null));
+                if (data != null) {
+                    buttons.add(data);
+                }
+            }
+        }
+        if (sentAt == 0 || expectsKeyboard && buttons.isEmpty()) {
+            return -1;
+        }
+
+        long latency = receivedAt - sentAt;
+        sentAt = 0;
+        chooseNextStep(messageId, buttons);
+        return latency;
+    }
+
+    private void chooseNextStep(int messageId, List<CallbackData> buttons) {
+        List<CallbackData> packages = new ArrayList<>();
+        CallbackData click = null;
+        boolean browsable = false;
+        for (CallbackData button : buttons) {
+            switch (button.opcode()) {
+                case SHOW_ANSWER, SHOW_ANSWER_REPETITION, NEXT_QUESTION_REPETITION, START_EDUCATION -> click = button;
+                case SHOW_PACKAGE -> packages.add(button);
+                case FIRST_CARD -> browsable = true;
+                default -> {
+                }
+            }
+        }
+
+        if (buttons.stream().anyMatch(button -> button.opcode() == CallbackOpcode.ANSWER_0)) {
+            clickLater(messageId, ANSWERS.get(random.nextInt(ANSWERS.size())).encode());
+        } else if (click != null && (click.opcode() != CallbackOpcode.START_EDUCATION || browsable)) {
+            clickLater(messageId, click.opcode().encode(click.first(), click.second()));
+        } else if (!packages.isEmpty()) {
+            CallbackData chosen = packages.get(random.nextInt(packages.size()));
+            clickLater(messageId, chosen.opcode().encode(chosen.first()));
+        } else {
+            // the guide, or the congratulation after a finished package: pick another package
+            nextCommand = SHOW_ALL_PACKAGES;
+        }
+    }
+
+    private void clickLater(int messageId, String callbackData) {
+        nextCommand = null;
+        nextMessageId = messageId;
+        nextCallbackData = callbackData;
+    }
+}
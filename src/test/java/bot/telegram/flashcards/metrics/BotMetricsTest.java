@@ -0,0 +1,106 @@
+package bot.telegram.flashcards.metrics;
+
+import bot.telegram.flashcards.misc.CallbackOpcode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for BotMetrics
+ * Tests route tags, outcomes and disabled metrics
+ */
+@DisplayName("BotMetrics Tests")
+class BotMetricsTest {
+    private MeterRegistry registry;
+    private ObjectProvider<MeterRegistry> registryProvider;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        registryProvider = mock(ObjectProvider.class);
+        when(registryProvider.getIfAvailable()).thenReturn(registry);
+    }
+
+    @Test
+    @DisplayName("Should record commands under their route and outcome")
+    void testCommandTimer_RecordsRouteAndOutcome() {
+        // Given
+        BotMetrics botMetrics = new BotMetrics(registryProvider, true);
+
+        // When
+        OperationTimer timer = botMetrics.commandTimer("/start");
+        timer.success(timer.start());
+        timer.failure(timer.start());
+
+        // Then
+        assertThat(registry.get("bot.commands").tags("route", "/start", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("bot.commands").tags("route", "/start", "outcome", "failure").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should record any other text under a single route")
+    void testCommandTimer_WhenTextIsNotACommand_UsesUnknownRoute() {
+        // Given
+        BotMetrics botMetrics = new BotMetrics(registryProvider, true);
+
+        // When
+        OperationTimer first = botMetrics.commandTimer("hello");
+        OperationTimer second = botMetrics.commandTimer("/unknown");
+
+        // Then
+        assertThat(first).isSameAs(second);
+        first.success(first.start());
+        assertThat(registry.get("bot.commands").tags("route", "unknown").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should register a timer for every button at startup")
+    void testCallbackTimer_RegistersEveryOpcode() {
+        // When
+        new BotMetrics(registryProvider, true);
+
+        // Then
+        for (CallbackOpcode opcode : CallbackOpcode.values()) {
+            assertThat(registry.find("bot.callbacks").tags("route", opcode.name(), "outcome", "success").timer())
+                    .isNotNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reuse the timer of an API method")
+    void testApiTimer_ReturnsSameTimerForSameMethod() {
+        // Given
+        BotMetrics botMetrics = new BotMetrics(registryProvider, true);
+
+        // When & Then
+        assertThat(botMetrics.apiTimer("sendmessage")).isSameAs(botMetrics.apiTimer("sendmessage"));
+        assertThat(botMetrics.apiTimer("sendmessage")).isNotSameAs(botMetrics.apiTimer("editMessageText"));
+    }
+
+    @Test
+    @DisplayName("Should record nothing when metrics are disabled")
+    void testTimers_WhenDisabled_RecordNothing() {
+        // Given
+        BotMetrics botMetrics = new BotMetrics(registryProvider, false);
+
+        // When
+        OperationTimer timer = botMetrics.callbackTimer(CallbackOpcode.SHOW_ANSWER);
+        long startedAt = timer.start();
+        timer.success(startedAt);
+        botMetrics.unknownCallback();
+
+        // Then
+        assertThat(startedAt).isZero();
+        assertThat(registry.getMeters()).isEmpty();
+    }
+}
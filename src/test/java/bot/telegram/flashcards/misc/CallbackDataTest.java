@@ -0,0 +1,70 @@
+package bot.telegram.flashcards.misc;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for CallbackData
+ * Tests decoding of callback data and its round trip with CallbackOpcode encoding
+ */
+@DisplayName("CallbackData Tests")
+class CallbackDataTest {
+
+    @Test
+    @DisplayName("Should decode package ID from start education button")
+    void testDecode_StartEducation_ReturnsPackageId() {
+        // When
+        CallbackData result = CallbackData.decode("FLASHCARD_PACKAGE_42_SELECTED");
+
+        // Then
+        assertThat(result).isEqualTo(new CallbackData(CallbackOpcode.START_EDUCATION, 42, 0));
+    }
+
+    @Test
+    @DisplayName("Should decode package ID and card index from browse button")
+    void testDecode_NextCard_ReturnsPackageIdAndIndex() {
+        // When
+        CallbackData result = CallbackData.decode("NEXT_CARD_7_OF_PACKAGE_13_CLICKED");
+
+        // Then
+        assertThat(result).isEqualTo(new CallbackData(CallbackOpcode.NEXT_CARD, 7, 13));
+    }
+
+    @Test
+    @DisplayName("Should distinguish buttons sharing a prefix")
+    void testDecode_SharedPrefixes_ReturnsMatchingOpcodes() {
+        assertThat(CallbackData.decode("SHOW_ANSWER_CLICKED").opcode()).isEqualTo(CallbackOpcode.SHOW_ANSWER);
+        assertThat(CallbackData.decode("SHOW_ANSWER_REPETITION_CLICKED").opcode()).isEqualTo(CallbackOpcode.SHOW_ANSWER_REPETITION);
+        assertThat(CallbackData.decode("SHOW_ALL_PACKAGES_5_SELECTED").opcode()).isEqualTo(CallbackOpcode.SHOW_PACKAGE);
+        assertThat(CallbackData.decode("25%_BUTTON_CLICKED").opcode()).isEqualTo(CallbackOpcode.ANSWER_25);
+        assertThat(CallbackData.decode("0%_BUTTON_CLICKED").opcode()).isEqualTo(CallbackOpcode.ANSWER_0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CallbackOpcode.class)
+    @DisplayName("Should decode every encoded button back to the same values")
+    void testDecode_EncodedData_RoundTrips(CallbackOpcode opcode) {
+        // Given
+        long first = opcode.getArity() > 0 ? 123 : 0;
+        long second = opcode.getArity() > 1 ? 4567 : 0;
+
+        // When
+        CallbackData result = CallbackData.decode(opcode.encode(first, second));
+
+        // Then
+        assertThat(result).isEqualTo(new CallbackData(opcode, first, second));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "UNKNOWN", "FLASHCARD_PACKAGE__SELECTED", "FLASHCARD_PACKAGE_1_SELECTED_", "FLASHCARD_PACKAGE_x_SELECTED",
+            "SHOW_ANSWER", "FLASHCARD_PACKAGE_12345678901234567890_SELECTED"})
+    @DisplayName("Should return null for unknown or malformed data")
+    void testDecode_MalformedData_ReturnsNull(String data) {
+        assertThat(CallbackData.decode(data)).isNull();
+    }
+}
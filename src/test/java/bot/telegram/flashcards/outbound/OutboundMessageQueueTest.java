@@ -0,0 +1,273 @@
+package bot.telegram.flashcards.outbound;
+
+import bot.telegram.flashcards.metrics.BotMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for OutboundMessageQueue
+ * Tests ordering, coalescing of edits and the retry of failed requests, on a manual clock
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboundMessageQueue Tests")
+class OutboundMessageQueueTest {
+    private static final long CHAT_ID = 1L;
+    private static final long OTHER_CHAT_ID = 2L;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration BASE_BACKOFF = Duration.ofMillis(500);
+
+    @Mock
+    private AbsSender sender;
+
+    private final ManualClock clock = new ManualClock();
+    private OutboundMessageQueue outboundMessageQueue;
+
+    @BeforeEach
+    void setUp() {
+        outboundMessageQueue = new OutboundMessageQueue(30, 10, 10, MAX_ATTEMPTS, BASE_BACKOFF,
+                new BotMetrics(null, false), new RenderedMessageCache(100, Duration.ofHours(1)),
+                clock, new DirectExecutorService());
+        outboundMessageQueue.start(sender);
+        // the scheduler thread started above waits on the real clock; the tests release chats themselves
+        outboundMessageQueue.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should send the messages of a chat in enqueue order")
+    void testEnqueue_SameChat_KeepsOrder() throws TelegramApiException {
+        // Given
+        when(sender.execute(any(SendMessage.class))).thenReturn(new Message());
+
+        // When
+        outboundMessageQueue.enqueue(createMessage(CHAT_ID, "first"));
+        outboundMessageQueue.enqueue(createMessage(CHAT_ID, "second"));
+        outboundMessageQueue.enqueue(createMessage(CHAT_ID, "third"));
+        outboundMessageQueue.releaseReady();
+
+        // Then
+        InOrder inOrder = inOrder(sender);
+        for (String text : List.of("first", "second", "third")) {
+            inOrder.verify(sender).execute(argThat((SendMessage sent) -> text.equals(sent.getText())));
+        }
+        assertThat(outboundMessageQueue.getPendingMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop a queued edit when a newer edit of the same message is enqueued")
+    void testEnqueue_NewerEditOfSameMessage_DropsOlderEdit() throws TelegramApiException {
+        // Given
+        when(sender.execute(any(EditMessageText.class))).thenReturn(new Message());
+        CompletableFuture<Serializable> older = outboundMessageQueue.enqueue(createEdit(CHAT_ID, 5, "older"));
+
+        // When
+        CompletableFuture<Serializable> newer = outboundMessageQueue.enqueue(createEdit(CHAT_ID, 5, "newer"));
+        outboundMessageQueue.releaseReady();
+
+        // Then
+        assertThat(older).isCompletedWithValue(null);
+        assertThat(newer).isDone();
+        verify(sender, times(1)).execute(any(EditMessageText.class));
+        verify(sender).execute(argThat((EditMessageText sent) -> "newer".equals(sent.getText())));
+    }
+
+    @Test
+    @DisplayName("Should requeue a rate limited message and pause every chat for retry_after")
+    void testSend_WhenRateLimited_PausesAllChatsForRetryAfter() throws TelegramApiException {
+        // Given
+        long start = clock.nanoTime();
+        long[] otherChatSentAt = new long[1];
+        TelegramApiRequestException rateLimited = createRequestError(429, null);
+        ResponseParameters parameters = new ResponseParameters();
+        parameters.setRetryAfter(30);
+        when(rateLimited.getParameters()).thenReturn(parameters);
+        Message delivered = new Message();
+        when(sender.execute(argThat((SendMessage sent) -> sent != null && "limited".equals(sent.getText()))))
+                .thenThrow(rateLimited)
+                .thenReturn(delivered);
+        when(sender.execute(argThat((SendMessage sent) -> sent != null && "other".equals(sent.getText()))))
+                .thenAnswer(invocation -> {
+                    otherChatSentAt[0] = clock.nanoTime();
+                    return new Message();
+                });
+
+        // When
+        CompletableFuture<Message> limited = outboundMessageQueue.enqueue(createMessage(CHAT_ID, "limited"));
+        CompletableFuture<Message> other = outboundMessageQueue.enqueue(createMessage(OTHER_CHAT_ID, "other"));
+        outboundMessageQueue.releaseReady();
+
+        // Then
+        assertThat(other).isDone();
+        assertThat(otherChatSentAt[0] - start).isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(30));
+        assertThat(limited).isCompletedWithValue(delivered);
+        verify(sender, times(2)).execute(argThat((SendMessage sent) -> sent != null && "limited".equals(sent.getText())));
+    }
+
+    @Test
+    @DisplayName("Should retry a server error with exponential backoff and give up after the last attempt")
+    void testSend_WhenServerError_BacksOffAndGivesUp() throws TelegramApiException {
+        // Given
+        TelegramApiRequestException serverError = createRequestError(502, null);
+        when(sender.execute(any(SendMessage.class))).thenThrow(serverError);
+        CompletableFuture<Message> result = outboundMessageQueue.enqueue(createMessage(CHAT_ID, "text"));
+        outboundMessageQueue.releaseReady();
+
+        // When
+        clock.advance(Duration.ofMillis(499));
+        int releasedBeforeFirstBackoff = outboundMessageQueue.releaseReady();
+        clock.advance(Duration.ofMillis(1));
+        int releasedAfterFirstBackoff = outboundMessageQueue.releaseReady();
+        clock.advance(Duration.ofMillis(999));
+        int releasedBeforeSecondBackoff = outboundMessageQueue.releaseReady();
+        clock.advance(Duration.ofMillis(1));
+        int releasedAfterSecondBackoff = outboundMessageQueue.releaseReady();
+
+        // Then
+        assertThat(releasedBeforeFirstBackoff).isZero();
+        assertThat(releasedAfterFirstBackoff).isEqualTo(1);
+        assertThat(releasedBeforeSecondBackoff).isZero();
+        assertThat(releasedAfterSecondBackoff).isEqualTo(1);
+        assertThat(result).isCompletedExceptionally();
+        verify(sender, times(MAX_ATTEMPTS)).execute(any(SendMessage.class));
+        assertThat(outboundMessageQueue.getPendingMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should retry a network error with backoff and give up after the last attempt")
+    void testSend_WhenNetworkError_GivesUpAfterMaxAttempts() throws TelegramApiException {
+        // Given
+        when(sender.execute(any(SendMessage.class))).thenThrow(new TelegramApiException("Connection reset"));
+        CompletableFuture<Message> result = outboundMessageQueue.enqueue(createMessage(CHAT_ID, "text"));
+
+        // When
+        outboundMessageQueue.releaseReady();
+        clock.advance(BASE_BACKOFF);
+        outboundMessageQueue.releaseReady();
+        clock.advance(BASE_BACKOFF.multipliedBy(2));
+        outboundMessageQueue.releaseReady();
+        clock.advance(Duration.ofHours(1));
+        int releasedAfterGivingUp = outboundMessageQueue.releaseReady();
+
+        // Then
+        assertThat(result).isCompletedExceptionally();
+        assertThat(releasedAfterGivingUp).isZero();
+        verify(sender, times(MAX_ATTEMPTS)).execute(any(SendMessage.class));
+    }
+
+    @Test
+    @DisplayName("Should treat a message that is not modified as sent and go on with the next one")
+    void testSend_WhenMessageNotModified_CompletesAsSent() throws TelegramApiException {
+        // Given
+        TelegramApiRequestException notModified = createRequestError(400,
+                "{\"ok\":false,\"error_code\":400,\"description\":\"Bad Request: message is not modified\"}");
+        when(sender.execute(any(EditMessageText.class))).thenThrow(notModified);
+        when(sender.execute(any(SendMessage.class))).thenReturn(new Message());
+
+        // When
+        CompletableFuture<Serializable> edit = outboundMessageQueue.enqueue(createEdit(CHAT_ID, 5, "same"));
+        CompletableFuture<Message> next = outboundMessageQueue.enqueue(createMessage(CHAT_ID, "next"));
+        outboundMessageQueue.releaseReady();
+
+        // Then
+        assertThat(edit).isCompletedWithValue(null);
+        assertThat(next).isDone().isNotCompletedExceptionally();
+        verify(sender, times(1)).execute(any(EditMessageText.class));
+    }
+
+    private static TelegramApiRequestException createRequestError(int errorCode, String apiResponse) {
+        TelegramApiRequestException exception = mock(TelegramApiRequestException.class);
+        when(exception.getErrorCode()).thenReturn(errorCode);
+        lenient().when(exception.getApiResponse()).thenReturn(apiResponse);
+        return exception;
+    }
+
+    private static SendMessage createMessage(long chatId, String text) {
+        return SendMessage.builder().chatId(chatId).text(text).build();
+    }
+
+    private static EditMessageText createEdit(long chatId, int messageId, String text) {
+        return EditMessageText.builder().chatId(chatId).messageId(messageId).text(text).build();
+    }
+
+    /**
+     * Clock moved only by the test and by waits for a rate limit, which pass at once.
+     */
+    private static final class ManualClock implements OutboundClock {
+        private long now = System.nanoTime();
+
+        @Override
+        public synchronized long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public synchronized void parkNanos(long nanos) {
+            now += nanos;
+        }
+
+        private synchronized void advance(Duration duration) {
+            now += duration.toNanos();
+        }
+    }
+
+    /**
+     * Runs requests on the calling thread, so each release finishes its sends before returning.
+     */
+    private static final class DirectExecutorService extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package bot.telegram.flashcards.outbound;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for RenderedMessageCache
+ * Tests skipping of unchanged edits and of clicks whose rendering is shown
+ */
+@DisplayName("RenderedMessageCache Tests")
+class RenderedMessageCacheTest {
+    private static final long CHAT_ID = 1L;
+    private static final int MESSAGE_ID = 10;
+
+    private final RenderedMessageCache renderedMessages = new RenderedMessageCache(100, Duration.ofHours(1));
+
+    @Test
+    @DisplayName("Should skip an edit identical to the last one")
+    void testRender_SameEdit_ReturnsFalse() {
+        // Given
+        assertThat(renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "answer", "SHOW_ANSWER_CLICKED"))).isTrue();
+
+        // When
+        boolean changed = renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "answer", "SHOW_ANSWER_CLICKED"));
+
+        // Then
+        assertThat(changed).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should send edits with another text, keyboard or message")
+    void testRender_DifferentEdit_ReturnsTrue() {
+        // Given
+        renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "answer", "SHOW_ANSWER_CLICKED"));
+
+        // When & Then
+        assertThat(renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "question", "SHOW_ANSWER_CLICKED"))).isTrue();
+        assertThat(renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "question", "0%_BUTTON_CLICKED"))).isTrue();
+        assertThat(renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID + 1, "question", "0%_BUTTON_CLICKED"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should send an edit again after the chat was forgotten")
+    void testRender_AfterForget_ReturnsTrue() {
+        // Given
+        renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "answer", "SHOW_ANSWER_CLICKED"));
+        renderedMessages.forget(CHAT_ID);
+
+        // When
+        boolean changed = renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "answer", "SHOW_ANSWER_CLICKED"));
+
+        // Then
+        assertThat(changed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should recognize a repeated click until the message is edited again")
+    void testIsRenderedBy_UntilNextEdit() {
+        // Given
+        CallbackQuery click = createCallbackQuery(MESSAGE_ID, "SHOW_ANSWER_CLICKED");
+        assertThat(renderedMessages.isRenderedBy(click)).isFalse();
+        renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "answer", "0%_BUTTON_CLICKED"));
+        renderedMessages.renderedBy(click);
+
+        // When
+        boolean repeated = renderedMessages.isRenderedBy(createCallbackQuery(MESSAGE_ID, "SHOW_ANSWER_CLICKED"));
+        renderedMessages.render(CHAT_ID, createEdit(MESSAGE_ID, "next question", "SHOW_ANSWER_CLICKED"));
+
+        // Then
+        assertThat(repeated).isTrue();
+        assertThat(renderedMessages.isRenderedBy(createCallbackQuery(MESSAGE_ID, "SHOW_ANSWER_CLICKED"))).isFalse();
+    }
+
+    private static EditMessageText createEdit(int messageId, String text, String buttonData) {
+        return EditMessageText.builder()
+                .chatId(CHAT_ID)
+                .messageId(messageId)
+                .text(text)
+                .replyMarkup(new InlineKeyboardMarkup(List.of(List.of(InlineKeyboardButton.builder()
+                        .text("button")
+                        .callbackData(buttonData)
+                        .build()))))
+                .build();
+    }
+
+    private static CallbackQuery createCallbackQuery(int messageId, String data) {
+        Chat chat = new Chat();
+        chat.setId(CHAT_ID);
+        Message message = new Message();
+        message.setChat(chat);
+        message.setMessageId(messageId);
+        message.setDate(1);
+
+        CallbackQuery callbackQuery = new CallbackQuery();
+        callbackQuery.setMessage(message);
+        callbackQuery.setData(data);
+        return callbackQuery;
+    }
+}
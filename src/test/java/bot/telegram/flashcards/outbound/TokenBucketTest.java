@@ -0,0 +1,67 @@
+package bot.telegram.flashcards.outbound;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for TokenBucket
+ * Tests burst capacity, refill timing and pauses
+ */
+@DisplayName("TokenBucket Tests")
+class TokenBucketTest {
+
+    @Test
+    @DisplayName("Should allow a burst up to capacity and then ask to wait")
+    void testTryAcquire_WhenBurstExhausted_ReturnsWaitTime() {
+        // Given
+        TokenBucket tokenBucket = new TokenBucket(3, 1);
+        long now = System.nanoTime();
+
+        // When & Then
+        assertThat(tokenBucket.tryAcquire(now)).isZero();
+        assertThat(tokenBucket.tryAcquire(now)).isZero();
+        assertThat(tokenBucket.tryAcquire(now)).isZero();
+        assertThat(tokenBucket.tryAcquire(now))
+                .isPositive()
+                .isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    @DisplayName("Should refill tokens over time")
+    void testTryAcquire_AfterRefillPeriod_ReturnsToken() {
+        // Given
+        TokenBucket tokenBucket = new TokenBucket(1, 2);
+        long now = System.nanoTime();
+        tokenBucket.tryAcquire(now);
+
+        // When
+        long wait = tokenBucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(600));
+
+        // Then
+        assertThat(wait).isZero();
+    }
+
+    @Test
+    @DisplayName("Should give no token until a pause ends, then refill from empty")
+    void testTryAcquire_WhilePaused_ReturnsRemainingPause() {
+        // Given
+        TokenBucket tokenBucket = new TokenBucket(3, 1);
+        long now = System.nanoTime();
+        long pauseEnd = now + TimeUnit.SECONDS.toNanos(5);
+
+        // When
+        tokenBucket.pauseUntil(pauseEnd);
+        tokenBucket.pauseUntil(now + TimeUnit.SECONDS.toNanos(1));
+
+        // Then
+        assertThat(tokenBucket.getPause(now)).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+        assertThat(tokenBucket.tryAcquire(now)).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+        assertThat(tokenBucket.getPause(pauseEnd)).isZero();
+        assertThat(tokenBucket.tryAcquire(pauseEnd)).isPositive();
+        assertThat(tokenBucket.tryAcquire(pauseEnd + TimeUnit.SECONDS.toNanos(1))).isZero();
+    }
+}
@@ -0,0 +1,334 @@
+package bot.telegram.flashcards.service;
+
+import bot.telegram.flashcards.cache.FlashcardContentCache;
+import bot.telegram.flashcards.cache.KnownUserRegistry;
+import bot.telegram.flashcards.cache.PackageCardIndex;
+import bot.telegram.flashcards.cache.PackageCatalogCache;
+import bot.telegram.flashcards.dispatch.UpdateDispatcher;
+import bot.telegram.flashcards.models.Flashcard;
+import bot.telegram.flashcards.models.FlashcardPackage;
+import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.models.temporary.FlashcardStatus;
+import bot.telegram.flashcards.repository.FlashcardEducationListRepository;
+import bot.telegram.flashcards.repository.FlashcardPackageRepository;
+import bot.telegram.flashcards.repository.FlashcardRepetitionListRepository;
+import bot.telegram.flashcards.repository.FlashcardRepository;
+import bot.telegram.flashcards.repository.FlashcardStatusRepository;
+import bot.telegram.flashcards.repository.StudySessionStateRepository;
+import bot.telegram.flashcards.repository.UserRepository;
+import bot.telegram.flashcards.service.session.StudySessionCheckpointWriter;
+import bot.telegram.flashcards.service.session.StudySessionEngine;
+import bot.telegram.flashcards.service.session.StudySessionReaper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the fetch plan of bot commands
+ * Counts the SQL statements and loaded entities of each command against an in-memory database.
+ * Runs without a test transaction, like the bot, so lazy associations cannot be loaded by accident.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "bot.session.checkpoint-interval=1h",
+        "bot.session.reaper-interval=1h"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserService.class, StartService.class, ShowAllPackagesService.class, FlashcardService.class,
+        EducationService.class, StudySessionEngine.class, StudySessionCheckpointWriter.class, StudySessionReaper.class,
+        PackageCatalogCache.class, PackageCardIndex.class, FlashcardContentCache.class,
+        KnownUserRegistry.class, UpdateDispatcher.class})
+@DisplayName("Command Statement Count Tests")
+class CommandStatementCountTest {
+    private static final long CHAT_ID = 12345L;
+    private static final int MESSAGE_ID = 1;
+    private static final int CARDS_PER_PACKAGE = 50;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private FlashcardPackageRepository flashcardPackageRepository;
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+    @Autowired
+    private FlashcardEducationListRepository flashcardEducationListRepository;
+    @Autowired
+    private FlashcardRepetitionListRepository flashcardRepetitionListRepository;
+    @Autowired
+    private FlashcardStatusRepository flashcardStatusRepository;
+    @Autowired
+    private StudySessionStateRepository studySessionStateRepository;
+    @Autowired
+    private StudySessionCheckpointWriter checkpointWriter;
+    @Autowired
+    private StudySessionEngine studySessionEngine;
+    @Autowired
+    private StudySessionReaper studySessionReaper;
+    @Autowired
+    private KnownUserRegistry knownUserRegistry;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private StartService startService;
+    @Autowired
+    private ShowAllPackagesService showAllPackagesService;
+    @Autowired
+    private EducationService educationService;
+
+    private Statistics statistics;
+    private long packageId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User owner = userRepository.save(User.builder().id(CHAT_ID).build());
+        for (int p = 0; p < 3; p++) {
+            FlashcardPackage flashcardPackage = new FlashcardPackage();
+            flashcardPackage.setTitle("Package " + p);
+            flashcardPackage.setDescription("Description " + p);
+            flashcardPackage.setUser(owner);
+            flashcardPackage = flashcardPackageRepository.save(flashcardPackage);
+            packageId = flashcardPackage.getId();
+
+            List<Flashcard> flashcards = new ArrayList<>();
+            for (int c = 0; c < CARDS_PER_PACKAGE; c++) {
+                Flashcard flashcard = new Flashcard();
+                flashcard.setFlashcardPackage(flashcardPackage);
+                flashcard.setQuestion("Question " + c);
+                flashcard.setAnswer("Answer " + c);
+                flashcards.add(flashcard);
+            }
+            flashcardRepository.saveAll(flashcards);
+        }
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        educationService.clearTemporaryResourcesAfterEducation(CHAT_ID);
+        checkpointWriter.flush();
+        flashcardEducationListRepository.deleteAll();
+        flashcardRepetitionListRepository.deleteAll();
+        flashcardStatusRepository.deleteAll();
+        flashcardRepository.deleteAll();
+        flashcardPackageRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("/start for a known user should not touch the database")
+    void testStart_WhenUserKnown_ExecutesNoStatement() {
+        // Given
+        knownUserRegistry.load();
+        statistics.clear();
+
+        // When
+        boolean result = startService.addUserIfNotInRepo(CHAT_ID);
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("/showallpackages should load the catalog once and then serve it from the cache")
+    void testShowAllPackages_LoadsCatalogOnce() {
+        // When
+        showAllPackagesService.getAllPackages(CHAT_ID);
+        showAllPackagesService.getAllPackages(CHAT_ID);
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("/showallpackages should show a package added after the catalog was cached")
+    void testShowAllPackages_AfterPackageAdded_ReloadsCatalog() {
+        // Given
+        showAllPackagesService.getAllPackages(CHAT_ID);
+        FlashcardPackage flashcardPackage = new FlashcardPackage();
+        flashcardPackage.setTitle("New package");
+        flashcardPackageRepository.save(flashcardPackage);
+
+        // When
+        SendMessage result = showAllPackagesService.getAllPackages(CHAT_ID);
+
+        // Then
+        InlineKeyboardMarkup keyboard = (InlineKeyboardMarkup) result.getReplyMarkup();
+        assertThat(keyboard.getKeyboard()).hasSize(4);
+        assertThat(keyboard.getKeyboard().get(3).get(0).getText()).isEqualTo("New package");
+    }
+
+    @Test
+    @DisplayName("Package description should load the card index instead of the cards")
+    void testShowPackage_CountsCards() {
+        // When
+        showAllPackagesService.showPackage(packageId, MESSAGE_ID, CHAT_ID);
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Browsing a card should fetch only that card once the package is indexed")
+    void testShowCard_FetchesOnlyShownCard() {
+        // Given
+        showAllPackagesService.getPreviousOrNextCard(packageId, 0, MESSAGE_ID, CHAT_ID);
+        statistics.clear();
+
+        // When
+        EditMessageText result = showAllPackagesService.getPreviousOrNextCard(packageId, CARDS_PER_PACKAGE - 1, MESSAGE_ID, CHAT_ID);
+
+        // Then
+        assertThat(result.getText()).contains("Card: " + CARDS_PER_PACKAGE, "Question " + (CARDS_PER_PACKAGE - 1));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Starting education should load card IDs and only the first card")
+    void testStartEducation_LoadsFirstCardOnly() {
+        // When
+        userService.runInUnitOfWork(() -> educationService.generateFlashcardList(packageId, CHAT_ID, MESSAGE_ID));
+
+        // Then
+        // user, card IDs, first card content, then the update of the user
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Showing the answer should take the card content from the cache")
+    void testShowAnswer_ReadsCachedCardContent() {
+        // Given
+        userService.runInUnitOfWork(() -> educationService.generateFlashcardList(packageId, CHAT_ID, MESSAGE_ID));
+        statistics.clear();
+
+        // When
+        userService.runInUnitOfWork(() -> educationService.changeMsgToMsgWithShownAnswer(CHAT_ID, MESSAGE_ID));
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("A new flashcard status should be saved under its user and card")
+    void testSaveFlashcardStatus_WritesKeyColumns() {
+        // Given
+        User user = userRepository.findById(CHAT_ID).orElseThrow();
+        Flashcard flashcard = flashcardRepository.findAll().iterator().next();
+        long flashcardId = flashcard.getId();
+        FlashcardStatus flashcardStatus = new FlashcardStatus(
+                new FlashcardStatus.FlashcardStatusPK(CHAT_ID, flashcardId), user, flashcard, 2, null);
+
+        // When
+        flashcardStatusRepository.save(flashcardStatus);
+
+        // Then
+        FlashcardStatus saved = flashcardStatusRepository
+                .findById(new FlashcardStatus.FlashcardStatusPK(CHAT_ID, flashcardId))
+                .orElseThrow();
+        assertThat(saved.getNumberOfDuplicatedCards()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Rating a card as hard should link its status without loading the card")
+    void testDuplicateFlashcard_DoesNotLoadCard() {
+        // Given
+        userService.runInUnitOfWork(() -> educationService.generateFlashcardList(packageId, CHAT_ID, MESSAGE_ID));
+        statistics.clear();
+
+        // When
+        userService.runInUnitOfWork(() -> educationService.duplicateFlashcard(CHAT_ID, 2));
+
+        // Then
+        assertThat(statistics.getEntityStatistics(Flashcard.class.getName()).getLoadCount()).isZero();
+        assertThat(flashcardStatusRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Stopping a session should leave the removal of its rows to the checkpoint writer")
+    void testClearSession_RemovesRowsOffRequestPath() {
+        // Given
+        userService.runInUnitOfWork(() -> educationService.generateFlashcardList(packageId, CHAT_ID, MESSAGE_ID));
+        userService.runInUnitOfWork(() -> educationService.duplicateFlashcard(CHAT_ID, 2));
+        checkpointWriter.flush();
+        statistics.clear();
+
+        // When
+        userService.runInUnitOfWork(() -> educationService.clearTemporaryResourcesAfterEducation(CHAT_ID));
+
+        // Then
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(studySessionStateRepository.count()).isEqualTo(1);
+        checkpointWriter.flush();
+        assertThat(studySessionStateRepository.count()).isZero();
+        assertThat(flashcardEducationListRepository.count()).isZero();
+        assertThat(flashcardStatusRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("The reaper should clear sessions idle for longer than the TTL")
+    void testReap_ClearsIdleSession() {
+        // Given
+        userService.runInUnitOfWork(() -> educationService.generateFlashcardList(packageId, CHAT_ID, MESSAGE_ID));
+        userService.runInUnitOfWork(() -> educationService.duplicateFlashcard(CHAT_ID, 2));
+        checkpointWriter.flush();
+        User user = userRepository.findById(CHAT_ID).orElseThrow();
+        user.setLastActivity(LocalDateTime.now().minusDays(2));
+        userRepository.save(user);
+
+        // When
+        int reaped = studySessionReaper.reap();
+
+        // Then
+        assertThat(reaped).isEqualTo(1);
+        assertThat(userRepository.findById(CHAT_ID).orElseThrow().getCurrentFlashcard()).isNull();
+        assertThat(studySessionEngine.findSession(CHAT_ID)).isNull();
+        assertThat(studySessionStateRepository.count()).isZero();
+        assertThat(flashcardEducationListRepository.count()).isZero();
+        assertThat(flashcardStatusRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Restoring a session without duplicates should read its header instead of the card lists")
+    void testNextFlashcard_AfterRestart_SkipsEmptyLists() {
+        // Given
+        userService.runInUnitOfWork(() -> educationService.generateFlashcardList(packageId, CHAT_ID, MESSAGE_ID));
+        checkpointWriter.flush();
+        studySessionEngine.discard(List.of(CHAT_ID));
+        statistics.clear();
+
+        // When
+        EditMessageText result = educationService.nextFlashcard(CHAT_ID, MESSAGE_ID);
+
+        // Then
+        assertThat(result.getText()).startsWith("Flashcard 2/" + CARDS_PER_PACKAGE);
+        assertThat(statistics.getQueries()).noneMatch(query -> query.contains("FlashcardEducationList")
+                || query.contains("FlashcardRepetitionList"));
+    }
+}
@@ -1,6 +1,6 @@
 package bot.telegram.flashcards.service;
 
-import bot.telegram.flashcards.models.User;
+import bot.telegram.flashcards.cache.KnownUserRegistry;
 import bot.telegram.flashcards.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,7 +14,7 @@ import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +28,9 @@ class StartServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private KnownUserRegistry knownUserRegistry;
+
     @InjectMocks
     private StartService startService;
 
@@ -43,29 +46,45 @@ class StartServiceTest {
     @DisplayName("Should create new user when user does not exist")
     void testAddUserIfNotInRepo_WhenUserNotExists_CreatesNewUser() {
         // Given
-        when(userRepository.existsById(CHAT_ID)).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(knownUserRegistry.isKnown(CHAT_ID)).thenReturn(false);
+        when(userRepository.insertIfAbsent(CHAT_ID)).thenReturn(1);
 
         // When
         boolean result = startService.addUserIfNotInRepo(CHAT_ID);
 
         // Then
         assertThat(result).isFalse(); // Returns false because user did not exist
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).insertIfAbsent(CHAT_ID);
+        verify(knownUserRegistry).add(CHAT_ID);
+    }
+
+    @Test
+    @DisplayName("Should not query the database when user is known")
+    void testAddUserIfNotInRepo_WhenUserKnown_DoesNotQueryRepository() {
+        // Given
+        when(knownUserRegistry.isKnown(CHAT_ID)).thenReturn(true);
+
+        // When
+        boolean result = startService.addUserIfNotInRepo(CHAT_ID);
+
+        // Then
+        assertThat(result).isTrue(); // Returns true because user already existed
+        verifyNoInteractions(userRepository);
     }
 
     @Test
-    @DisplayName("Should not create user when user already exists")
+    @DisplayName("Should not create user when user already exists but is not known yet")
     void testAddUserIfNotInRepo_WhenUserExists_DoesNotCreateUser() {
         // Given
-        when(userRepository.existsById(CHAT_ID)).thenReturn(true);
+        when(knownUserRegistry.isKnown(CHAT_ID)).thenReturn(false);
+        when(userRepository.insertIfAbsent(CHAT_ID)).thenReturn(0);
 
         // When
         boolean result = startService.addUserIfNotInRepo(CHAT_ID);
 
         // Then
         assertThat(result).isTrue(); // Returns true because user already existed
-        verify(userRepository, never()).save(any(User.class));
+        verify(knownUserRegistry).add(CHAT_ID);
     }
 
     @Test
@@ -118,14 +137,14 @@ class StartServiceTest {
     @DisplayName("Should handle exception during user creation gracefully")
     void testAddUserIfNotInRepo_WhenExceptionThrown_ReturnsFalse() {
         // Given
-        when(userRepository.existsById(CHAT_ID)).thenThrow(new RuntimeException("Database error"));
+        when(userRepository.insertIfAbsent(CHAT_ID)).thenThrow(new RuntimeException("Database error"));
 
         // When
         boolean result = startService.addUserIfNotInRepo(CHAT_ID);
 
         // Then
         assertThat(result).isFalse();
-        verify(userRepository, never()).save(any());
+        verify(knownUserRegistry, never()).add(anyLong());
     }
 
     @Test
@@ -6,9 +6,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -28,7 +29,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private UserService userService;
 
     private User user;
@@ -36,6 +39,7 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
+        userService = new UserService(userRepository, new TransactionTemplate(transactionManager));
         user = new User();
         user.setId(USER_ID);
         user.setCurrentFlashcard(null);
@@ -113,4 +117,65 @@ class UserServiceTest {
         assertThat(user.getHardCard()).isEqualTo(3L);
         assertThat(user.getHardestCard()).isEqualTo(2L);
     }
+
+    @Test
+    @DisplayName("Should load user once and write all saves together in a unit of work")
+    void testRunInUnitOfWork_WhenUserLoadedAndSavedTwice_LoadsAndWritesOnce() {
+        // Given
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(userRepository.updateSession(user)).thenReturn(1);
+
+        // When
+        userService.runInUnitOfWork(() -> {
+            User first = userService.getUser(USER_ID);
+            first.addHardCard(1L);
+            userService.save(first);
+
+            User second = userService.getUser(USER_ID);
+            second.setCurrentFlashcard(2L);
+            userService.save(second);
+
+            assertThat(second).isSameAs(first);
+        });
+
+        // Then
+        verify(userRepository, times(1)).findById(USER_ID);
+        verify(userRepository, never()).save(any());
+        verify(userRepository, times(1)).updateSession(user);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should not open a transaction when the unit of work saved nothing")
+    void testRunInUnitOfWork_WhenNothingSaved_WritesNothing() {
+        // Given
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+
+        // When
+        userService.runInUnitOfWork(() -> userService.getUser(USER_ID));
+
+        // Then
+        verify(userRepository, never()).updateSession(any());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should discard the changes of a unit of work that throws")
+    void testRunInUnitOfWork_WhenWorkThrows_WritesNothing() {
+        // Given
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+
+        // When
+        assertThatThrownBy(() -> userService.runInUnitOfWork(() -> {
+            User loaded = userService.getUser(USER_ID);
+            loaded.setCurrentFlashcard(2L);
+            userService.save(loaded);
+            throw new IllegalStateException("Handler error");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        verify(userRepository, never()).updateSession(any());
+        verify(userRepository, never()).save(any());
+        verifyNoInteractions(transactionManager);
+    }
 }
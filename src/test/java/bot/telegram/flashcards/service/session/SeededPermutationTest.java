@@ -0,0 +1,71 @@
+package bot.telegram.flashcards.service.session;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for SeededPermutation
+ * Tests that the permutation is a bijection and is reproducible from its seed
+ */
+@DisplayName("SeededPermutation Tests")
+class SeededPermutationTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 17, 1000, 65_537})
+    @DisplayName("Should map the ordinals onto themselves without collisions")
+    void testApply_AllOrdinals_IsBijection(int size) {
+        // Given
+        SeededPermutation permutation = new SeededPermutation(size, 7);
+        BitSet seen = new BitSet(size);
+
+        // When
+        for (int i = 0; i < size; i++) {
+            int ordinal = permutation.applyAsInt(i);
+            assertThat(ordinal).isBetween(0, size - 1);
+            seen.set(ordinal);
+        }
+
+        // Then
+        assertThat(seen.cardinality()).isEqualTo(size);
+    }
+
+    @Test
+    @DisplayName("Should produce the same order for the same seed and another order for another seed")
+    void testApply_SameSeed_SameOrder() {
+        // Given
+        SeededPermutation first = new SeededPermutation(100, 1);
+        SeededPermutation same = new SeededPermutation(100, 1);
+        SeededPermutation other = new SeededPermutation(100, 2);
+
+        // When
+        int[] firstOrder = new int[100];
+        int[] sameOrder = new int[100];
+        int[] otherOrder = new int[100];
+        for (int i = 0; i < 100; i++) {
+            firstOrder[i] = first.applyAsInt(i);
+            sameOrder[i] = same.applyAsInt(i);
+            otherOrder[i] = other.applyAsInt(i);
+        }
+
+        // Then
+        assertThat(sameOrder).isEqualTo(firstOrder);
+        assertThat(otherOrder).isNotEqualTo(firstOrder);
+    }
+
+    @Test
+    @DisplayName("Should reject ordinals outside of the permuted range")
+    void testApply_OutOfRange_Throws() {
+        // Given
+        SeededPermutation permutation = new SeededPermutation(10, 1);
+
+        // When & Then
+        assertThatThrownBy(() -> permutation.applyAsInt(10)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,147 @@
+package bot.telegram.flashcards.service.session;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for StudyQueue
+ * Tests card order, reinsertion of duplicates and the persisted snapshot
+ */
+@DisplayName("StudyQueue Tests")
+class StudyQueueTest {
+
+    @Test
+    @DisplayName("Should place a duplicate the requested number of cards ahead")
+    void testInsertAhead_WithOffset_ShowsDuplicateAtThatPosition() {
+        // Given
+        StudyQueue studyQueue = new StudyQueue(new long[]{10, 20, 30, 40, 50});
+        studyQueue.advance();
+
+        // When
+        studyQueue.insertAhead(3);
+
+        // Then
+        assertThat(studyQueue.size()).isEqualTo(6);
+        assertThat(showRemaining(studyQueue)).containsExactly(10L, 20L, 30L, 10L, 40L, 50L);
+    }
+
+    @Test
+    @DisplayName("Should append a duplicate beyond the end after all pending cards")
+    void testInsertAhead_BeyondEnd_AppendsInInsertionOrder() {
+        // Given
+        StudyQueue studyQueue = new StudyQueue(new long[]{10, 20, 30});
+        studyQueue.advance();
+
+        // When
+        studyQueue.insertAhead(100);
+        studyQueue.insertAhead(100);
+
+        // Then
+        assertThat(showRemaining(studyQueue)).containsExactly(10L, 20L, 30L, 10L, 10L);
+    }
+
+    @Test
+    @DisplayName("Should show base cards and duplicates in order and then report exhaustion")
+    void testAdvance_WithDuplicates_ReturnsCardsInOrder() {
+        // Given
+        StudyQueue studyQueue = new StudyQueue(new long[]{10, 20, 30});
+        studyQueue.advance();
+        studyQueue.insertAhead(2);
+
+        // When & Then
+        assertThat(studyQueue.position()).isEqualTo(1);
+        assertThat(studyQueue.advance()).isTrue();
+        assertThat(studyQueue.current()).isEqualTo(20);
+        assertThat(studyQueue.advance()).isTrue();
+        assertThat(studyQueue.current()).isEqualTo(10);
+        assertThat(studyQueue.advance()).isTrue();
+        assertThat(studyQueue.current()).isEqualTo(30);
+        assertThat(studyQueue.position()).isEqualTo(studyQueue.size());
+        assertThat(studyQueue.advance()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should restore the cursor and duplicate rows and keep placing duplicates between cards")
+    void testRestore_FromCursorAndDuplicates_ContinuesWithSameOrder() {
+        // Given
+        long[] cards = {10, 20, 30, 40};
+        StudyQueue original = new StudyQueue(cards);
+        original.advance();
+        original.insertAhead(2);
+        original.advance();
+        StudyQueue.Rows rows = original.pendingDuplicates();
+
+        // When
+        StudyQueue restored = StudyQueue.restore(cards, cards.length, IntUnaryOperator.identity(),
+                original.currentKey(), rows.keys(), rows.cards(), original.position() - 1);
+        restored.advance();
+        restored.insertAhead(2);
+
+        // Then
+        assertThat(restored.position()).isEqualTo(2);
+        assertThat(restored.current()).isEqualTo(20);
+        assertThat(restored.drainUnsaved().keys()).hasSize(1);
+        assertThat(restored.size()).isEqualTo(6);
+        assertThat(showRemaining(restored)).containsExactly(20L, 10L, 30L, 20L, 40L);
+    }
+
+    @Test
+    @DisplayName("Should restore a session whose current card is a duplicate")
+    void testRestore_AtDuplicate_ShowsDuplicateThenNextCard() {
+        // Given
+        long[] cards = {10, 20, 30};
+        StudyQueue original = new StudyQueue(cards);
+        original.advance();
+        original.insertAhead(1);
+        original.advance();
+        StudyQueue.Rows rows = original.pendingDuplicates();
+
+        // When
+        StudyQueue restored = StudyQueue.restore(cards, cards.length, IntUnaryOperator.identity(),
+                original.currentKey(), rows.keys(), rows.cards(), original.position() - 1);
+        restored.advance();
+
+        // Then
+        assertThat(rows.cards()).containsExactly(10);
+        assertThat(original.pendingDuplicateCount()).isEqualTo(1);
+        assertThat(restored.current()).isEqualTo(10);
+        assertThat(restored.position()).isEqualTo(2);
+        assertThat(restored.size()).isEqualTo(4);
+        assertThat(showRemaining(restored)).containsExactly(10L, 20L, 30L);
+    }
+
+    @Test
+    @DisplayName("Should show every card of the package once in the order of the permutation")
+    void testAdvance_WithPermutation_ShowsEachCardOnce() {
+        // Given
+        long[] cards = {10, 20, 30, 40, 50, 60, 70};
+        StudyQueue studyQueue = new StudyQueue(cards, cards.length, new SeededPermutation(cards.length, 42));
+
+        // When
+        long[] shown = new long[cards.length];
+        for (int i = 0; studyQueue.advance(); i++) {
+            shown[i] = studyQueue.current();
+        }
+
+        // Then
+        assertThat(shown).containsExactlyInAnyOrder(cards);
+        assertThat(studyQueue.position()).isEqualTo(cards.length);
+    }
+
+    /**
+     * Shows the rest of the session: the current card and every card after it.
+     */
+    private static List<Long> showRemaining(StudyQueue studyQueue) {
+        List<Long> shown = new ArrayList<>();
+        do {
+            shown.add(studyQueue.current());
+        } while (studyQueue.advance());
+        return shown;
+    }
+}
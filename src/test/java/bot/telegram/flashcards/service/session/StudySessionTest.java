@@ -0,0 +1,58 @@
+package bot.telegram.flashcards.service.session;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for StudySession
+ * Tests membership of the repetition list and its checkpoint
+ */
+@DisplayName("StudySession Tests")
+class StudySessionTest {
+
+    @Test
+    @DisplayName("Should add a card to the repetition list once, also when it comes back as a duplicate")
+    void testAddCurrentToRepetition_WithDuplicate_AddsCardOnce() {
+        // Given
+        StudySession session = newSession(new long[]{10, 20, 30});
+        session.advanceEducation();
+        session.insertEducationCard(1);
+
+        // When
+        boolean first = session.addCurrentToRepetition();
+        session.advanceEducation();
+        boolean duplicate = session.addCurrentToRepetition();
+
+        // Then
+        assertThat(session.getCurrentEducationCard()).isEqualTo(10);
+        assertThat(first).isTrue();
+        assertThat(duplicate).isFalse();
+        assertThat(session.getRepetitionSize()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should write the repetition bitset with the checkpoint")
+    void testCheckpoint_WithRepetition_ContainsMembership() {
+        // Given
+        StudySession session = newSession(new long[]{10, 20, 30});
+        session.advanceEducation();
+        session.advanceEducation();
+        session.addCurrentToRepetition();
+
+        // When
+        StudySession.Checkpoint checkpoint = session.checkpoint();
+
+        // Then
+        assertThat(BitSet.valueOf(checkpoint.repetitionMembers())).isEqualTo(BitSet.valueOf(new long[]{0b10}));
+        assertThat(checkpoint.repetitionSize()).isEqualTo(1);
+        assertThat(checkpoint.repetition().cards()).containsExactly(20);
+    }
+
+    private static StudySession newSession(long[] cards) {
+        return new StudySession(1, 1, 0, new StudyQueue(cards), new long[0], new BitSet(cards.length), false, false);
+    }
+}